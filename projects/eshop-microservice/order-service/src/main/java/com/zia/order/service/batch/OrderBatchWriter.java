@@ -0,0 +1,250 @@
+package com.zia.order.service.batch;
+
+import com.zia.order.service.entity.Order;
+import com.zia.order.service.entity.OutboxEvent;
+import com.zia.order.service.exeption.CustomExeption;
+import com.zia.order.service.id.SnowflakeIdGenerator;
+import com.zia.order.service.outbox.Outbox;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.mapping.JdbcMapping;
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Group commit for new orders: concurrent callers queue their order and wait on a future while one
+ * writer thread inserts everything queued so far, up to max-batch-size orders or max-delay after the
+ * first one, with one multi-row insert (rewriteBatchedStatements=true) and one commit.
+ * The orders' outbox events go into the same transaction. A future completes with the order id once
+ * the commit has returned. A batch that rolls back is written again one order per transaction, so only
+ * the order that caused it fails, with the exception that rolled it back. A caller that stops waiting can
+ * cancel its order as long as the writer hasn't taken it into a batch.
+ * Instants are bound with Hibernate's own binder for the column, so they are stored in UTC like the
+ * rows JPA writes (a datetime on MySQL, a timestamp with time zone on H2), whatever the JVM's zone.
+ */
+@Component
+public class OrderBatchWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderBatchWriter.class);
+
+    private static final String INSERT_ORDER_SQL =
+            "insert into orders (order_id, product_id, quantity, order_date, order_status, amount, payment_method, failure_reason) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_OUTBOX_SQL =
+            "insert into outbox_events (aggregate_type, aggregate_id, event_type, payload, created_at) values (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Outbox outbox;
+
+    @Autowired
+    private SnowflakeIdGenerator orderIdGenerator;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${order.batch-writer.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${order.batch-writer.max-delay:2ms}")
+    private Duration maxDelay;
+
+    @Value("${order.batch-writer.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private JdbcMapping orderDateMapping;
+    private JdbcMapping createdAtMapping;
+    private WrapperOptions wrapperOptions;
+
+    private BlockingQueue<PendingOrder> queue;
+    private Thread writer;
+    private volatile boolean running = true;
+
+    @PostConstruct
+    void start() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        orderDateMapping = jdbcMapping(sessionFactory, Order.class, "orderDate");
+        createdAtMapping = jdbcMapping(sessionFactory, OutboxEvent.class, "createdAt");
+        wrapperOptions = sessionFactory.getWrapperOptions();
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        writer = new Thread(this::work, "order-batch-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // what is queued is still written, new orders are refused
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    // cheap check before doing anything that would have to be undone, the queue may still fill up in between
+    public boolean hasCapacity() {
+        return running && queue.remainingCapacity() > 0;
+    }
+
+    public CompletableFuture<Long> submit(Order order) {
+        PendingFuture future = new PendingFuture();
+        // no generated keys to read back, the id is known before the insert and kept if it is retried alone
+        order.setOrderId(orderIdGenerator.nextId());
+        PendingOrder pendingOrder = new PendingOrder(order, future);
+        if (!running || !queue.offer(pendingOrder)) {
+            future.completeExceptionally(busy());
+        } else if (!running && queue.remove(pendingOrder)) {
+            // the writer stopped between the check and the offer and may have drained the queue already
+            future.completeExceptionally(busy());
+        }
+        return future;
+    }
+
+    // true if the order will never be written, its future then fails with ORDER_WRITER_BUSY;
+    // false if it is being written or done already
+    public boolean cancel(CompletableFuture<Long> saved) {
+        if (!(saved instanceof PendingFuture future) || !future.taken.compareAndSet(false, true)) {
+            return false;
+        }
+        future.completeExceptionally(busy());
+        return true;
+    }
+
+    private void work() {
+        List<PendingOrder> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+                // from here on the orders can't be cancelled, those that were are dropped
+                batch.removeIf(pendingOrder -> !pendingOrder.future().taken.compareAndSet(false, true));
+                if (!batch.isEmpty()) {
+                    write(batch);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // interrupted or an Error: nothing writes these orders any more, fail them instead of leaving callers waiting.
+            // running goes false first, so a submit that offers after the drain below takes its order back itself
+            if (running) {
+                log.error("Order batch writer stopped unexpectedly, failing the orders it still holds");
+            }
+            running = false;
+            List<PendingOrder> unwritten = new ArrayList<>(batch);
+            queue.drainTo(unwritten);
+            unwritten.forEach(pendingOrder -> pendingOrder.future().completeExceptionally(busy()));
+        }
+    }
+
+    // fills the batch with whatever arrives within max-delay of the first order
+    private void collect(List<PendingOrder> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + maxDelay.toNanos();
+        while (batch.size() < maxBatchSize) {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() == maxBatchSize || remaining <= 0) {
+                return;
+            }
+            PendingOrder next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<PendingOrder> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                insertOrders(batch);
+                insertOutboxEvents(batch);
+            });
+        } catch (RuntimeException ex) {
+            if (batch.size() == 1) {
+                log.warn("Order {} could not be written", batch.get(0).order().getOrderId(), ex);
+                batch.get(0).future().completeExceptionally(ex);
+                return;
+            }
+            // one bad order shouldn't fail the others, find it by writing them one at a time
+            log.warn("Order batch of {} rolled back, writing its orders one by one", batch.size(), ex);
+            batch.forEach(pendingOrder -> write(List.of(pendingOrder)));
+            return;
+        }
+        batch.forEach(pendingOrder -> pendingOrder.future().complete(pendingOrder.order().getOrderId()));
+    }
+
+    private void insertOrders(List<PendingOrder> batch) {
+        List<Order> orders = new ArrayList<>(batch.size());
+        for (PendingOrder pendingOrder : batch) {
+            orders.add(pendingOrder.order());
+        }
+        jdbcTemplate.batchUpdate(INSERT_ORDER_SQL, orders, orders.size(), (ps, order) -> {
+            ps.setLong(1, order.getOrderId());
+            ps.setObject(2, order.getProductId(), Types.BIGINT);
+            ps.setObject(3, order.getQuantity(), Types.BIGINT);
+            orderDateMapping.getJdbcValueBinder().bind(ps, order.getOrderDate(), 4, wrapperOptions);
+            ps.setString(5, order.getOrderStatus());
+            ps.setObject(6, order.getAmount(), Types.DOUBLE);
+            ps.setString(7, order.getPaymentMethod());
+            ps.setString(8, order.getFailureReason());
+        });
+    }
+
+    private void insertOutboxEvents(List<PendingOrder> batch) {
+        List<OutboxEvent> events = new ArrayList<>(batch.size());
+        for (PendingOrder pendingOrder : batch) {
+            events.add(outbox.orderEvent(pendingOrder.order()));
+        }
+        jdbcTemplate.batchUpdate(INSERT_OUTBOX_SQL, events, events.size(), (ps, event) -> {
+            ps.setString(1, event.getAggregateType());
+            ps.setLong(2, event.getAggregateId());
+            ps.setString(3, event.getEventType());
+            ps.setString(4, event.getPayload());
+            createdAtMapping.getJdbcValueBinder().bind(ps, event.getCreatedAt(), 5, wrapperOptions);
+        });
+    }
+
+    private static JdbcMapping jdbcMapping(SessionFactoryImplementor sessionFactory, Class<?> entity, String attribute) {
+        return sessionFactory.getMappingMetamodel().getEntityDescriptor(entity).findAttributeMapping(attribute).getSingleJdbcMapping();
+    }
+
+    private static CustomExeption busy() {
+        return new CustomExeption("Too many orders being written, try again later", "ORDER_WRITER_BUSY", 503);
+    }
+
+    private record PendingOrder(Order order, PendingFuture future) {
+    }
+
+    private static final class PendingFuture extends CompletableFuture<Long> {
+        // set once, by the writer taking the order into a batch or by cancel
+        private final AtomicBoolean taken = new AtomicBoolean();
+    }
+}
@@ -0,0 +1,36 @@
+package com.zia.order.service.config;
+
+import com.netflix.appinfo.EurekaInstanceConfig;
+import com.zia.order.service.id.SnowflakeIdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IdGeneratorConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(IdGeneratorConfig.class);
+
+    // order.id.worker-id has to be set per instance. Deriving it from the Eureka instance id can give two
+    // instances the same worker and so duplicate ids, which is only accepted where order.id.derive-worker-id
+    // allows it, e.g. the dev profile
+    @Bean
+    public SnowflakeIdGenerator orderIdGenerator(@Value("${order.id.worker-id:-1}") int workerId,
+                                                 @Value("${order.id.derive-worker-id:false}") boolean deriveWorkerId,
+                                                 ObjectProvider<EurekaInstanceConfig> eurekaInstanceConfig) {
+        if (workerId < 0) {
+            if (!deriveWorkerId) {
+                throw new IllegalStateException("order.id.worker-id is not set; give every instance its own worker id (0-"
+                        + SnowflakeIdGenerator.MAX_WORKER_ID + ") or set order.id.derive-worker-id=true for a single local instance");
+            }
+            EurekaInstanceConfig instanceConfig = eurekaInstanceConfig.getIfAvailable();
+            String instanceId = instanceConfig == null ? null : instanceConfig.getInstanceId();
+            workerId = instanceId == null ? 0 : Math.floorMod(instanceId.hashCode(), SnowflakeIdGenerator.MAX_WORKER_ID + 1);
+            log.warn("order.id.worker-id is not set, using worker id {} from instance id {}", workerId, instanceId);
+        }
+        return new SnowflakeIdGenerator(workerId);
+    }
+}
@@ -1,15 +1,20 @@
 package com.zia.order.service.controller;
 
 import com.zia.order.service.model.OrderRequest;
+import com.zia.order.service.model.OrderResponse;
 import com.zia.order.service.service.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.net.URI;
+
 @RequestMapping("/api/orders")
 @RestController
 public class OrderController {
@@ -22,4 +27,18 @@ public class OrderController {
         Long orderId = orderService.placeOrder(orderRequest);
         return new ResponseEntity<>(orderId, HttpStatus.CREATED);
     }
+
+    // stores the order and returns at once, stock and payment are handled by the order saga.
+    // Poll GET /api/orders/{id} until the status is PLACED, REJECTED or PAYMENT_FAILED
+    @PostMapping("/async")
+    public ResponseEntity<Long> placeOrderAsync(@RequestBody OrderRequest orderRequest){
+        Long orderId = orderService.acceptOrder(orderRequest);
+        return ResponseEntity.accepted().location(URI.create("/api/orders/" + orderId)).body(orderId);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<OrderResponse> getOrder(@PathVariable("id") Long orderId){
+        OrderResponse orderResponse = orderService.getOrder(orderId);
+        return new ResponseEntity<>(orderResponse, HttpStatus.OK);
+    }
 }
@@ -16,14 +16,14 @@ import java.time.Instant;
         name = "orders"
 )
 public class Order {
+    // from SnowflakeIdGenerator, assigned before the insert
     @Id
-    @GeneratedValue(
-            strategy = GenerationType.IDENTITY
-    )
     private Long orderId;
     private Long productId;
     private Long quantity;
     private Instant orderDate;
     private String orderStatus;
     private Double amount;
+    private String paymentMethod;
+    private String failureReason;
 }
@@ -0,0 +1,34 @@
+package com.zia.order.service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// progress of the place-order saga of one order, see OrderSagaOrchestrator
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(
+        name = "order_sagas",
+        indexes = @Index(name = "idx_order_sagas_state_next_attempt", columnList = "state, next_attempt_at")
+)
+public class OrderSaga {
+    // one saga per order
+    @Id
+    private Long orderId;
+    private String state;
+    private Long reservationId;
+    private Long transactionId;
+    // failed tries of the current step
+    private int attempts;
+    // when the step may run next; while a step runs it is the end of the runner's lease
+    private Instant nextAttemptAt;
+    private String failureReason;
+    private Instant updatedAt;
+    @Version
+    private Long version;
+}
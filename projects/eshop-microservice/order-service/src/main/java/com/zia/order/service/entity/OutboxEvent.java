@@ -0,0 +1,36 @@
+package com.zia.order.service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// event written in the same transaction as the change it describes, OutboxRelay publishes it later
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(
+        name = "outbox_events",
+        indexes = @Index(name = "idx_outbox_events_published", columnList = "published_at, id")
+)
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(
+            strategy = GenerationType.IDENTITY
+    )
+    private Long id;
+    // e.g. Order
+    private String aggregateType;
+    private Long aggregateId;
+    // e.g. ORDER_PLACED
+    private String eventType;
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+    private Instant createdAt;
+    // null until a sink has taken it
+    private Instant publishedAt;
+}
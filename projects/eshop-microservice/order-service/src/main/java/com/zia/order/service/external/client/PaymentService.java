@@ -0,0 +1,14 @@
+package com.zia.order.service.external.client;
+
+import com.zia.order.service.external.request.PaymentRequest;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+@FeignClient(name = "PAYMENT-SERVICE/api/payments")
+public interface PaymentService {
+    // returns the transaction id, a repeated call for the same order returns the first one
+    @PostMapping("/pay")
+    public ResponseEntity<Long> doPayment(@RequestBody PaymentRequest paymentRequest);
+}
@@ -1,14 +1,33 @@
 package com.zia.order.service.external.client;
 
+import com.zia.order.service.external.request.ProductQuantityRequest;
+import com.zia.order.service.external.response.ProductBatchResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.List;
+
 @FeignClient(name = "PRODUCT-SERVICE/api/products")
 public interface ProductService {
     @PutMapping("/{id}/reduce-quantity/")
     public ResponseEntity<Void> reduceQuantity(@PathVariable("id") Long productId,
                                                @RequestParam("quantity") Long quantity);
+
+    // gives stock back, e.g. for an order that could not be stored after its stock was reduced
+    @PutMapping("/{id}/restock")
+    public ResponseEntity<Void> restock(@PathVariable("id") Long productId,
+                                        @RequestParam("quantity") Long quantity);
+
+    // reserves every line of a cart in one call, nothing is reduced if one line fails
+    @PutMapping("/reduce-quantity")
+    public ResponseEntity<Void> reduceQuantities(@RequestBody List<ProductQuantityRequest> items);
+
+    // product details for a whole cart or order history page in one call
+    @GetMapping("/by-ids")
+    public ResponseEntity<ProductBatchResponse> getProductsByIds(@RequestParam("ids") List<Long> productIds);
 }
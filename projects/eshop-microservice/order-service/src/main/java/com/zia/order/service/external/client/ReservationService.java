@@ -0,0 +1,23 @@
+package com.zia.order.service.external.client;
+
+import com.zia.order.service.external.request.ReservationRequest;
+import com.zia.order.service.external.response.ReservationResponse;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+// stock held by product-service until the order is paid, released or given back when the TTL runs out
+@FeignClient(name = "PRODUCT-SERVICE/api/reservations")
+public interface ReservationService {
+    @PostMapping
+    public ResponseEntity<ReservationResponse> reserve(@RequestBody ReservationRequest reservationRequest);
+
+    @PutMapping("/{id}/confirm")
+    public ResponseEntity<ReservationResponse> confirm(@PathVariable("id") Long reservationId);
+
+    @PutMapping("/{id}/release")
+    public ResponseEntity<ReservationResponse> release(@PathVariable("id") Long reservationId);
+}
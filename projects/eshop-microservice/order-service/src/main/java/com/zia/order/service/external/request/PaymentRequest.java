@@ -0,0 +1,16 @@
+package com.zia.order.service.external.request;
+
+import com.zia.order.service.model.PaymentMethod;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaymentRequest {
+    private Long orderId;
+    private Double amount;
+    private String referenceNumber;
+    private PaymentMethod paymentMethod;
+}
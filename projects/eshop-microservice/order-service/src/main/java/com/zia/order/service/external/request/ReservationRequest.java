@@ -0,0 +1,15 @@
+package com.zia.order.service.external.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservationRequest {
+    private Long productId;
+    private Long quantity;
+    private Long ttlSeconds;
+    private String idempotencyKey;
+}
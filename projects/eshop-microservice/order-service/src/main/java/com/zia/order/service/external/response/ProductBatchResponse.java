@@ -0,0 +1,15 @@
+package com.zia.order.service.external.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductBatchResponse {
+    private List<ProductResponse> products;
+    private List<Long> missingIds;
+}
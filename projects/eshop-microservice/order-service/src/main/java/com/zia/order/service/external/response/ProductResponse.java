@@ -0,0 +1,15 @@
+package com.zia.order.service.external.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductResponse {
+    private Long productId;
+    private String name;
+    private Double price;
+    private Long quantity;
+}
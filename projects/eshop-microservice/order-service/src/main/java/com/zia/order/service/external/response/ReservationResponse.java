@@ -0,0 +1,19 @@
+package com.zia.order.service.external.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservationResponse {
+    private Long reservationId;
+    private Long productId;
+    private Long quantity;
+    // PENDING, CONFIRMED, RELEASED or EXPIRED
+    private String status;
+    private Instant expiresAt;
+}
@@ -0,0 +1,42 @@
+package com.zia.order.service.intake;
+
+import com.zia.order.service.model.OrderStatus;
+import com.zia.order.service.outbox.Outbox;
+import com.zia.order.service.repository.OrderRepository;
+import com.zia.order.service.saga.OrderSagaOrchestrator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// hands an accepted order over to its saga
+@Component
+public class AcceptedOrderProcessor {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderSagaOrchestrator orderSagaOrchestrator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Outbox outbox;
+
+    public void process(Long orderId) {
+        // the claim keeps two workers or two instances from starting the same order twice,
+        // and commits together with the saga row and the ORDER_PROCESSING event so a claimed order always has both
+        Boolean claimed = transactionTemplate.execute(status -> {
+            if (orderRepository.updateStatusIf(orderId, OrderStatus.ACCEPTED.name(), OrderStatus.PROCESSING.name(), null) == 0) {
+                return false;
+            }
+            orderSagaOrchestrator.create(orderId);
+            outbox.orderChanged(orderRepository.findById(orderId).orElseThrow());
+            return true;
+        });
+        if (Boolean.TRUE.equals(claimed)) {
+            orderSagaOrchestrator.schedule(orderId, 0);
+        }
+    }
+}
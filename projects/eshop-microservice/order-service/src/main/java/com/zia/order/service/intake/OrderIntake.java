@@ -0,0 +1,146 @@
+package com.zia.order.service.intake;
+
+import com.zia.order.service.model.OrderStatus;
+import com.zia.order.service.repository.OrderRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded queue of accepted order ids and the workers that drain it.
+ * The order row is stored as ACCEPTED before its id is queued, so the queue only decides when an order
+ * is processed, not whether: ids that didn't fit or were lost in a restart are picked up again by the
+ * sweep, which re-reads the ACCEPTED rows. Workers only start the order's saga, the remote calls run there.
+ */
+@Component
+public class OrderIntake {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderIntake.class);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private AcceptedOrderProcessor acceptedOrderProcessor;
+
+    @Value("${order.intake.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${order.intake.workers:8}")
+    private int workerCount;
+
+    private BlockingQueue<Long> queue;
+    // ids waiting or being processed, so the sweep doesn't queue them twice
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private ExecutorService workers;
+    private volatile boolean running = true;
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger threadNo = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "order-intake-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::work);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // orders being processed finish, queued ones stay ACCEPTED for the next start
+        running = false;
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    // cheap check before storing a new order, the queue may still fill up in between
+    public boolean hasCapacity() {
+        return queue.remainingCapacity() > 0;
+    }
+
+    public boolean submit(Long orderId) {
+        if (!inFlight.add(orderId)) {
+            return true;
+        }
+        if (!queue.offer(orderId)) {
+            inFlight.remove(orderId);
+            return false;
+        }
+        return true;
+    }
+
+    // picks up what a previous run left behind
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        log.info("Queued {} accepted orders", sweep());
+    }
+
+    @Scheduled(initialDelayString = "${order.intake.sweep-interval:30s}", fixedDelayString = "${order.intake.sweep-interval:30s}")
+    public void sweepAcceptedOrders() {
+        sweep();
+    }
+
+    private int sweep() {
+        int free = queue.remainingCapacity();
+        if (free == 0) {
+            return 0;
+        }
+        int queued = 0;
+        List<Long> orderIds = orderRepository.findIdsByStatus(OrderStatus.ACCEPTED.name(), Limit.of(free + inFlight.size()));
+        for (Long orderId : orderIds) {
+            if (!inFlight.contains(orderId)) {
+                if (!submit(orderId)) {
+                    break;
+                }
+                queued++;
+            }
+        }
+        return queued;
+    }
+
+    private void work() {
+        while (running) {
+            Long orderId;
+            try {
+                orderId = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (orderId == null) {
+                continue;
+            }
+            try {
+                acceptedOrderProcessor.process(orderId);
+            } catch (RuntimeException ex) {
+                // the claim and the saga row commit together: either the order is still ACCEPTED and the
+                // next sweep queues it again, or its saga exists and the saga sweep carries it on
+                log.error("Processing order {} failed", orderId, ex);
+            } finally {
+                inFlight.remove(orderId);
+            }
+        }
+    }
+}
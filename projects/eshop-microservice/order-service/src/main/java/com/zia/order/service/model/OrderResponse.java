@@ -0,0 +1,21 @@
+package com.zia.order.service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderResponse {
+    private Long orderId;
+    private Long productId;
+    private Long quantity;
+    private Instant orderDate;
+    private String orderStatus;
+    private Double amount;
+    // error code of the step that rejected the order, null otherwise
+    private String failureReason;
+}
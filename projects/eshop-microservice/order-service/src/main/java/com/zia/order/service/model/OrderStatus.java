@@ -0,0 +1,18 @@
+package com.zia.order.service.model;
+
+public enum OrderStatus {
+    // stored, waiting in the intake queue
+    ACCEPTED,
+    // claimed by an intake worker, its saga is running
+    PROCESSING,
+    // placed synchronously, stock reduced but not paid
+    CREATED,
+    // stock reserved, paid and confirmed
+    PLACED,
+    // out of stock or inventory unreachable
+    REJECTED,
+    // payment refused or unreachable, the reserved stock was released
+    PAYMENT_FAILED,
+    // paid but the stock could not be confirmed
+    FAILED
+}
@@ -0,0 +1,30 @@
+package com.zia.order.service.outbox;
+
+import com.zia.order.service.entity.OutboxEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// keeps what was published, for tests and local runs (order.outbox.sink=memory)
+@Component
+@ConditionalOnProperty(name = "order.outbox.sink", havingValue = "memory")
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final List<OutboxEvent> published = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        published.addAll(events);
+    }
+
+    public List<OutboxEvent> getPublished() {
+        return new ArrayList<>(published);
+    }
+
+    public void clear() {
+        published.clear();
+    }
+}
@@ -0,0 +1,24 @@
+package com.zia.order.service.outbox;
+
+import com.zia.order.service.entity.OutboxEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// default until a broker is wired in
+@Component
+@ConditionalOnProperty(name = "order.outbox.sink", havingValue = "log", matchIfMissing = true)
+public class LoggingOutboxSink implements OutboxSink {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggingOutboxSink.class);
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            log.info("Outbox event {} {} {}: {}", event.getId(), event.getEventType(), event.getAggregateId(), event.getPayload());
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.zia.order.service.outbox;
+
+import java.time.Instant;
+
+// payload of the ORDER_* outbox events
+public record OrderEvent(Long orderId, Long productId, Long quantity, Double amount,
+                         String orderStatus, String failureReason, Instant occurredAt) {
+}
@@ -0,0 +1,54 @@
+package com.zia.order.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zia.order.service.entity.Order;
+import com.zia.order.service.entity.OutboxEvent;
+import com.zia.order.service.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+// writes events next to the order change, only ever inside the transaction that makes the change
+@Component
+public class Outbox {
+
+    private static final String ORDER = "Order";
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // ORDER_<status> with the order as it is now
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderChanged(Order order) {
+        outboxEventRepository.save(orderEvent(order));
+    }
+
+    // the event unsaved, for writers that insert it themselves
+    public OutboxEvent orderEvent(Order order) {
+        Instant now = Instant.now();
+        OrderEvent orderEvent = new OrderEvent(order.getOrderId(), order.getProductId(), order.getQuantity(),
+                order.getAmount(), order.getOrderStatus(), order.getFailureReason(), now);
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setAggregateType(ORDER);
+        outboxEvent.setAggregateId(order.getOrderId());
+        outboxEvent.setEventType("ORDER_" + order.getOrderStatus());
+        outboxEvent.setPayload(toJson(orderEvent));
+        outboxEvent.setCreatedAt(now);
+        return outboxEvent;
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize outbox payload", e);
+        }
+    }
+}
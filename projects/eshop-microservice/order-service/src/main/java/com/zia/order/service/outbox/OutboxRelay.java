@@ -0,0 +1,122 @@
+package com.zia.order.service.outbox;
+
+import com.zia.order.service.entity.OutboxEvent;
+import com.zia.order.service.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves outbox events to the OutboxSink on its own thread, away from the requests that wrote them.
+ * A batch is claimed with FOR UPDATE SKIP LOCKED, handed to the sink and marked published in the same
+ * transaction, so several instances can relay at once without taking the same rows. Full batches are
+ * followed by the next one right away, an empty table is polled every poll-interval.
+ * Runs as a SmartLifecycle, so it stops when the context starts closing, before the datasource goes away.
+ */
+@Component
+public class OutboxRelay implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxSink outboxSink;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${order.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${order.outbox.poll-interval:200ms}")
+    private Duration pollInterval;
+
+    @Value("${order.outbox.retention:7d}")
+    private Duration retention;
+
+    private volatile ScheduledExecutorService relay;
+
+    @Override
+    public void start() {
+        relay = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        relay.scheduleWithFixedDelay(this::drainQuietly, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        relay.shutdown();
+        try {
+            relay.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return relay != null && !relay.isShutdown();
+    }
+
+    private void drainQuietly() {
+        try {
+            while (relayBatch() == batchSize) {
+                if (relay.isShutdown()) {
+                    return;
+                }
+            }
+        } catch (RuntimeException ex) {
+            // never let an exception cancel the periodic task, the batch is tried again
+            log.error("Outbox relay failed", ex);
+        }
+    }
+
+    // returns how many events went out
+    int relayBatch() {
+        Integer published = transactionTemplate.execute(status -> {
+            List<OutboxEvent> events = outboxEventRepository.claimUnpublished(Limit.of(batchSize));
+            if (events.isEmpty()) {
+                return 0;
+            }
+            try {
+                outboxSink.publish(events);
+            } catch (Exception e) {
+                throw new IllegalStateException("Outbox sink failed for " + events.size() + " events", e);
+            }
+            outboxEventRepository.markPublished(events.stream().map(OutboxEvent::getId).toList(), Instant.now());
+            return events.size();
+        });
+        return published == null ? 0 : published;
+    }
+
+    // published events are only kept for a while, deleted in batches to keep the transactions short
+    @Scheduled(fixedDelayString = "${order.outbox.cleanup-interval:1h}")
+    public void deletePublished() {
+        Instant before = Instant.now().minus(retention);
+        List<Long> ids;
+        do {
+            ids = outboxEventRepository.findPublishedIdsBefore(before, Limit.of(1000));
+            if (!ids.isEmpty()) {
+                outboxEventRepository.deleteAllByIdInBatch(ids);
+            }
+        } while (ids.size() == 1000);
+    }
+}
@@ -0,0 +1,15 @@
+package com.zia.order.service.outbox;
+
+import com.zia.order.service.entity.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Where OutboxRelay delivers events, chosen with order.outbox.sink.
+ * Called inside the transaction that holds the rows, they are marked published only if this returns.
+ * Throwing leaves the whole batch for the next poll, so delivery is at least once and consumers
+ * should drop duplicates by event id.
+ */
+public interface OutboxSink {
+    void publish(List<OutboxEvent> events) throws Exception;
+}
@@ -1,7 +1,26 @@
 package com.zia.order.service.repository;
 
 import com.zia.order.service.entity.Order;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    @Query("select o.orderId from Order o where o.orderStatus = :status order by o.orderId")
+    List<Long> findIdsByStatus(@Param("status") String status, Limit limit);
+
+    // moves the order on only if nobody else did first, returns 1 when it did.
+    // Flushes first so pending changes of the same transaction survive the clear
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Order o set o.orderStatus = :to, o.failureReason = :failureReason " +
+            "where o.orderId = :orderId and o.orderStatus = :from")
+    int updateStatusIf(@Param("orderId") Long orderId, @Param("from") String from,
+                       @Param("to") String to, @Param("failureReason") String failureReason);
 }
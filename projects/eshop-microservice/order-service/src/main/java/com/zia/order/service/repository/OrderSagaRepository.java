@@ -0,0 +1,17 @@
+package com.zia.order.service.repository;
+
+import com.zia.order.service.entity.OrderSaga;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderSagaRepository extends JpaRepository<OrderSaga, Long> {
+
+    @Query("select s.orderId from OrderSaga s where s.state in :states and s.nextAttemptAt <= :now order by s.nextAttemptAt")
+    List<Long> findDueIds(@Param("states") Collection<String> states, @Param("now") Instant now, Limit limit);
+}
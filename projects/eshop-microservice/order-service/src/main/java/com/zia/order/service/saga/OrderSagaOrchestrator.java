@@ -0,0 +1,328 @@
+package com.zia.order.service.saga;
+
+import com.zia.order.service.entity.Order;
+import com.zia.order.service.entity.OrderSaga;
+import com.zia.order.service.exeption.CustomExeption;
+import com.zia.order.service.external.client.PaymentService;
+import com.zia.order.service.external.client.ReservationService;
+import com.zia.order.service.external.request.PaymentRequest;
+import com.zia.order.service.external.request.ReservationRequest;
+import com.zia.order.service.external.response.ReservationResponse;
+import com.zia.order.service.model.OrderStatus;
+import com.zia.order.service.model.PaymentMethod;
+import com.zia.order.service.outbox.Outbox;
+import com.zia.order.service.repository.OrderRepository;
+import com.zia.order.service.repository.OrderSagaRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the place-order saga: reserve the stock, take the payment, confirm the reservation.
+ * A payment that is refused, or can't be made within max-attempts, is compensated by releasing the reservation.
+ *
+ * Every step is a task on a small scheduler, never on a request thread, and the saga row in order_sagas is
+ * updated after each one, so a restarted instance continues where the last one stopped. Before a step runs
+ * the saga is leased by pushing nextAttemptAt into the future under its @Version; the sweep only picks up
+ * sagas whose nextAttemptAt has passed, which are the ones waiting for a retry or abandoned by a dead runner.
+ * A step can therefore run twice (runner died after the call), so every call has to be safe to repeat:
+ * payment-service answers a second payment for the same order with the first transaction, product-service
+ * answers a second reservation with the same idempotency key (the order id) with the first one, and
+ * confirm and release are idempotent.
+ */
+@Component
+public class OrderSagaOrchestrator {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderSagaOrchestrator.class);
+
+    private static final List<String> ACTIVE_STATES = Arrays.stream(SagaState.values())
+            .filter(SagaState::isActive)
+            .map(SagaState::name)
+            .toList();
+
+    @Autowired
+    private OrderSagaRepository orderSagaRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Outbox outbox;
+
+    @Value("${order.saga.threads:4}")
+    private int threadCount;
+
+    @Value("${order.saga.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${order.saga.backoff:500ms}")
+    private Duration backoff;
+
+    @Value("${order.saga.max-backoff:30s}")
+    private Duration maxBackoff;
+
+    @Value("${order.saga.lease:60s}")
+    private Duration lease;
+
+    @Value("${order.saga.reservation-ttl:15m}")
+    private Duration reservationTtl;
+
+    @Value("${order.saga.sweep-batch-size:500}")
+    private int sweepBatchSize;
+
+    private ScheduledExecutorService executor;
+    // sagas with a task on the local scheduler
+    private final Set<Long> scheduled = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadNo = new AtomicInteger();
+        executor = new ScheduledThreadPoolExecutor(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "order-saga-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // leased sagas are taken over once the lease runs out
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    // stored in the caller's transaction, run it with schedule once that has committed
+    public void create(Long orderId) {
+        Instant now = Instant.now();
+        OrderSaga orderSaga = new OrderSaga();
+        orderSaga.setOrderId(orderId);
+        orderSaga.setState(SagaState.RESERVING.name());
+        orderSaga.setNextAttemptAt(now);
+        orderSaga.setUpdatedAt(now);
+        orderSagaRepository.save(orderSaga);
+    }
+
+    public void schedule(Long orderId, long delayMillis) {
+        if (scheduled.add(orderId)) {
+            executor.schedule(() -> run(orderId), delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        log.info("Resumed {} order sagas", sweep());
+    }
+
+    @Scheduled(initialDelayString = "${order.saga.sweep-interval:10s}", fixedDelayString = "${order.saga.sweep-interval:10s}")
+    public void sweepDueSagas() {
+        sweep();
+    }
+
+    private int sweep() {
+        int resumed = 0;
+        for (Long orderId : orderSagaRepository.findDueIds(ACTIVE_STATES, Instant.now(), Limit.of(sweepBatchSize))) {
+            if (!scheduled.contains(orderId)) {
+                schedule(orderId, 0);
+                resumed++;
+            }
+        }
+        return resumed;
+    }
+
+    private void run(Long orderId) {
+        scheduled.remove(orderId);
+        try {
+            OrderSaga orderSaga = lease(orderId);
+            if (orderSaga == null) {
+                return;
+            }
+            switch (SagaState.valueOf(orderSaga.getState())) {
+                case RESERVING -> reserve(orderSaga);
+                case PAYING -> pay(orderSaga);
+                case CONFIRMING -> confirm(orderSaga);
+                case RELEASING -> release(orderSaga);
+                default -> {
+                }
+            }
+        } catch (OptimisticLockingFailureException ex) {
+            // another runner took the saga over, it carries on from its own state
+            log.debug("Order saga {} is run elsewhere", orderId);
+        } catch (RuntimeException ex) {
+            // the lease runs out and the sweep tries again
+            log.error("Order saga {} failed", orderId, ex);
+        }
+    }
+
+    // null when the saga is finished or someone else's lease is still running
+    private OrderSaga lease(Long orderId) {
+        OrderSaga orderSaga = orderSagaRepository.findById(orderId).orElse(null);
+        Instant now = Instant.now();
+        if (orderSaga == null || !SagaState.valueOf(orderSaga.getState()).isActive() || orderSaga.getNextAttemptAt().isAfter(now)) {
+            return null;
+        }
+        orderSaga.setNextAttemptAt(now.plus(lease));
+        return orderSagaRepository.save(orderSaga);
+    }
+
+    private void reserve(OrderSaga orderSaga) {
+        Order order = findOrder(orderSaga);
+        ReservationResponse reservation;
+        try {
+            reservation = reservationService.reserve(new ReservationRequest(order.getProductId(), order.getQuantity(),
+                    reservationTtl.toSeconds(), "ORDER-" + order.getOrderId())).getBody();
+        } catch (RuntimeException ex) {
+            if (isRefusal(ex)) {
+                // e.g. INSUFFICIENT_QUANTITY, nothing was held
+                finish(orderSaga, SagaState.ABORTED, OrderStatus.REJECTED, errorCode(ex));
+            } else {
+                // the retry gets the reservation a timed-out call may have made, not a second one;
+                // if the saga gives up, a reservation nobody heard about expires on its own
+                retry(orderSaga, ex, () -> finish(orderSaga, SagaState.ABORTED, OrderStatus.REJECTED, "INVENTORY_UNAVAILABLE"));
+            }
+            return;
+        }
+        orderSaga.setReservationId(reservation.getReservationId());
+        advance(orderSaga, SagaState.PAYING, null);
+    }
+
+    private void pay(OrderSaga orderSaga) {
+        Order order = findOrder(orderSaga);
+        Long transactionId;
+        try {
+            transactionId = paymentService.doPayment(new PaymentRequest(order.getOrderId(), order.getAmount(),
+                    "ORDER-" + order.getOrderId(), PaymentMethod.valueOf(order.getPaymentMethod()))).getBody();
+        } catch (RuntimeException ex) {
+            if (isRefusal(ex)) {
+                advance(orderSaga, SagaState.RELEASING, errorCode(ex));
+            } else {
+                retry(orderSaga, ex, () -> advance(orderSaga, SagaState.RELEASING, "PAYMENT_UNAVAILABLE"));
+            }
+            return;
+        }
+        orderSaga.setTransactionId(transactionId);
+        advance(orderSaga, SagaState.CONFIRMING, null);
+    }
+
+    private void confirm(OrderSaga orderSaga) {
+        try {
+            reservationService.confirm(orderSaga.getReservationId());
+        } catch (RuntimeException ex) {
+            if (isRefusal(ex)) {
+                // the reservation expired before the payment came through
+                log.error("Order {} is paid with transaction {} but reservation {} could not be confirmed: {}",
+                        orderSaga.getOrderId(), orderSaga.getTransactionId(), orderSaga.getReservationId(), ex.getMessage());
+                finish(orderSaga, SagaState.FAILED, OrderStatus.FAILED, errorCode(ex));
+            } else {
+                // the customer has paid, keep trying however long it takes
+                retry(orderSaga, ex, null);
+            }
+            return;
+        }
+        finish(orderSaga, SagaState.COMPLETED, OrderStatus.PLACED, null);
+    }
+
+    private void release(OrderSaga orderSaga) {
+        try {
+            reservationService.release(orderSaga.getReservationId());
+        } catch (RuntimeException ex) {
+            if (isRefusal(ex)) {
+                log.error("Reservation {} of order {} could not be released: {}",
+                        orderSaga.getReservationId(), orderSaga.getOrderId(), ex.getMessage());
+            } else {
+                // the reservation's TTL gives the stock back if product-service stays away
+                retry(orderSaga, ex, () -> finish(orderSaga, SagaState.ABORTED, OrderStatus.PAYMENT_FAILED, orderSaga.getFailureReason()));
+                return;
+            }
+        }
+        finish(orderSaga, SagaState.ABORTED, OrderStatus.PAYMENT_FAILED, orderSaga.getFailureReason());
+    }
+
+    private Order findOrder(OrderSaga orderSaga) {
+        return orderRepository.findById(orderSaga.getOrderId()).orElseThrow();
+    }
+
+    // next step right away, on the scheduler
+    private void advance(OrderSaga orderSaga, SagaState next, String failureReason) {
+        Instant now = Instant.now();
+        orderSaga.setState(next.name());
+        orderSaga.setAttempts(0);
+        orderSaga.setFailureReason(failureReason);
+        orderSaga.setNextAttemptAt(now);
+        orderSaga.setUpdatedAt(now);
+        orderSagaRepository.save(orderSaga);
+        schedule(orderSaga.getOrderId(), 0);
+    }
+
+    // same step again after an exponential backoff with jitter, giveUp once max-attempts is reached
+    private void retry(OrderSaga orderSaga, RuntimeException ex, Runnable giveUp) {
+        int attempts = orderSaga.getAttempts() + 1;
+        if (giveUp != null && attempts >= maxAttempts) {
+            log.warn("Order saga {} gives up {} after {} attempts: {}", orderSaga.getOrderId(), orderSaga.getState(), attempts, ex.getMessage());
+            giveUp.run();
+            return;
+        }
+        long delay = Math.min(maxBackoff.toMillis(), backoff.toMillis() << Math.min(attempts - 1, 20));
+        delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        Instant now = Instant.now();
+        orderSaga.setAttempts(attempts);
+        orderSaga.setNextAttemptAt(now.plusMillis(delay));
+        orderSaga.setUpdatedAt(now);
+        orderSagaRepository.save(orderSaga);
+        schedule(orderSaga.getOrderId(), delay);
+    }
+
+    // the saga, its order and the order's event in one transaction
+    private void finish(OrderSaga orderSaga, SagaState end, OrderStatus orderStatus, String failureReason) {
+        Instant now = Instant.now();
+        orderSaga.setState(end.name());
+        orderSaga.setFailureReason(failureReason);
+        orderSaga.setNextAttemptAt(now);
+        orderSaga.setUpdatedAt(now);
+        transactionTemplate.executeWithoutResult(status -> {
+            orderSagaRepository.save(orderSaga);
+            if (orderRepository.updateStatusIf(orderSaga.getOrderId(), OrderStatus.PROCESSING.name(), orderStatus.name(), failureReason) == 1) {
+                outbox.orderChanged(findOrder(orderSaga));
+            }
+        });
+    }
+
+    // the other service answered and said no; anything else may work on a second try
+    private static boolean isRefusal(RuntimeException ex) {
+        return ex instanceof CustomExeption customExeption && customExeption.getStatus() >= 400 && customExeption.getStatus() < 500;
+    }
+
+    private static String errorCode(RuntimeException ex) {
+        return ((CustomExeption) ex).getErrorCode();
+    }
+}
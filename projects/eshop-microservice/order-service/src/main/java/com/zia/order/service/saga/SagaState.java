@@ -0,0 +1,25 @@
+package com.zia.order.service.saga;
+
+public enum SagaState {
+    RESERVING(true),
+    PAYING(true),
+    CONFIRMING(true),
+    // compensation: gives the reserved stock back
+    RELEASING(true),
+    // paid and confirmed, the order is PLACED
+    COMPLETED(false),
+    // stopped before payment or compensated, nothing is held
+    ABORTED(false),
+    // paid but the stock couldn't be confirmed, needs someone to look at it
+    FAILED(false);
+
+    private final boolean active;
+
+    SagaState(boolean active) {
+        this.active = active;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+}
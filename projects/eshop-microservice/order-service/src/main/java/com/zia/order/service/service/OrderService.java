@@ -1,7 +1,10 @@
 package com.zia.order.service.service;
 
 import com.zia.order.service.model.OrderRequest;
+import com.zia.order.service.model.OrderResponse;
 
 public interface OrderService {
     Long placeOrder(OrderRequest orderRequest);
+    Long acceptOrder(OrderRequest orderRequest);
+    OrderResponse getOrder(Long orderId);
 }
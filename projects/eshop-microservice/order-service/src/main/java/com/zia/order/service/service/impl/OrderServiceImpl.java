@@ -1,24 +1,48 @@
 package com.zia.order.service.service.impl;
 
+import com.zia.order.service.batch.OrderBatchWriter;
 import com.zia.order.service.entity.Order;
+import com.zia.order.service.exeption.CustomExeption;
 import com.zia.order.service.external.client.ProductService;
+import com.zia.order.service.intake.OrderIntake;
 import com.zia.order.service.model.OrderRequest;
+import com.zia.order.service.model.OrderResponse;
+import com.zia.order.service.model.OrderStatus;
 import com.zia.order.service.repository.OrderRepository;
 import com.zia.order.service.service.OrderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class OrderServiceImpl implements OrderService {
 
+    private static final Logger log = LoggerFactory.getLogger(OrderServiceImpl.class);
+
     @Autowired
     private OrderRepository orderRepository;
 
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private OrderIntake orderIntake;
+
+    @Autowired
+    private OrderBatchWriter orderBatchWriter;
+
+    @Value("${order.batch-writer.write-timeout:5s}")
+    private Duration writeTimeout;
+
     @Override
     public Long placeOrder(OrderRequest orderRequest) {
 
@@ -26,6 +50,12 @@ public class OrderServiceImpl implements OrderService {
         // 2. call the product service to reduce the inventory
         // 3. call the payment service to make the payment if success update the order status to PLACED
         // 4. if payment fails update the order status to PAYMENT_FAILED
+        // This path only does the stock part; orders sent to /async go through all of it in OrderSagaOrchestrator
+
+        // refused before the stock is touched if the writer can't take the order anyway
+        if (!orderBatchWriter.hasCapacity()) {
+            throw new CustomExeption("Too many orders being written, try again later", "ORDER_WRITER_BUSY", 503);
+        }
 
         // Step 1: Reduce product quantity by calling Product Service
         productService.reduceQuantity(orderRequest.getProductId(), orderRequest.getQuantity());
@@ -36,9 +66,78 @@ public class OrderServiceImpl implements OrderService {
         order.setProductId(orderRequest.getProductId());
         order.setQuantity(orderRequest.getQuantity());
         order.setOrderDate(Instant.now());
-        order.setOrderStatus("CREATED");
+        order.setOrderStatus(OrderStatus.CREATED.name());
+
+        CompletableFuture<Long> saved = orderBatchWriter.submit(order);
+        // an order that is not stored gives its stock back, also when that is only known after this
+        // request stopped waiting; off the writer thread, which completes the future
+        saved.whenCompleteAsync((orderId, ex) -> {
+            if (ex != null) {
+                restock(orderRequest.getProductId(), orderRequest.getQuantity());
+            }
+        });
+        return await(saved);
+    }
 
-        order = orderRepository.save(order);
-        return order.getOrderId();
+    @Override
+    public Long acceptOrder(OrderRequest orderRequest) {
+        if (orderRequest.getPaymentMethod() == null) {
+            throw new CustomExeption("Payment method is required", "PAYMENT_METHOD_REQUIRED", 400);
+        }
+        if (!orderIntake.hasCapacity()) {
+            throw new CustomExeption("Too many orders waiting, try again later", "ORDER_QUEUE_FULL", 503);
+        }
+        Order order = new Order();
+        order.setAmount(orderRequest.getAmount());
+        order.setProductId(orderRequest.getProductId());
+        order.setQuantity(orderRequest.getQuantity());
+        order.setOrderDate(Instant.now());
+        order.setOrderStatus(OrderStatus.ACCEPTED.name());
+        order.setPaymentMethod(orderRequest.getPaymentMethod().name());
+
+        // stored first: if the queue filled up in the meantime the sweep queues it later.
+        // Queued after the commit, a worker could not claim the order before that
+        Long orderId = await(orderBatchWriter.submit(order));
+        orderIntake.submit(orderId);
+        return orderId;
+    }
+
+    // waits for the group commit that stores the order together with those of concurrent requests,
+    // the order's event commits with it
+    private Long await(CompletableFuture<Long> saved) {
+        try {
+            return saved.get(writeTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            if (orderBatchWriter.cancel(saved)) {
+                // never written, a retry can't place it twice; placeOrder gives the stock back as for any order that isn't stored
+                throw new CustomExeption("Too many orders being written, try again later", "ORDER_WRITER_BUSY", 503);
+            }
+            // in a batch being written right now, it isn't lost but this request can't tell
+            throw new CustomExeption("Order could not be stored in time, it may still be placed", "ORDER_WRITE_TIMEOUT", 503);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CustomExeption("Interrupted while storing the order", "ORDER_WRITE_INTERRUPTED", 503);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private void restock(Long productId, Long quantity) {
+        try {
+            productService.restock(productId, quantity);
+        } catch (RuntimeException ex) {
+            log.error("Order for {} x {} was not stored and its stock could not be given back", quantity, productId, ex);
+        }
+    }
+
+    @Override
+    public OrderResponse getOrder(Long orderId) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new CustomExeption("Order not found with ID: " + orderId, "ORDER_NOT_FOUND", 404));
+        return new OrderResponse(order.getOrderId(), order.getProductId(), order.getQuantity(), order.getOrderDate(),
+                order.getOrderStatus(), order.getAmount(), order.getFailureReason());
     }
 }
@@ -3,7 +3,7 @@ package com.zia.order.service;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "order.id.worker-id=0")
 class OrderServiceApplicationTests {
 
 	@Test
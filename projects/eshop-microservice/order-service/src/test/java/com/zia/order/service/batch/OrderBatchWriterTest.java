@@ -0,0 +1,227 @@
+package com.zia.order.service.batch;
+
+import com.zia.order.service.entity.Order;
+import com.zia.order.service.entity.OutboxEvent;
+import com.zia.order.service.exeption.CustomExeption;
+import com.zia.order.service.id.SnowflakeIdGenerator;
+import com.zia.order.service.model.OrderStatus;
+import com.zia.order.service.repository.OrderRepository;
+import com.zia.order.service.repository.OutboxEventRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for OrderBatchWriter
+ * A caller hears back only once its order is committed, a bad order fails alone, nothing queued is left waiting
+ */
+@SpringBootTest(properties = {
+        "order.batch-writer.max-batch-size=3",
+        "order.batch-writer.max-delay=1s"
+})
+@ActiveProfiles("test")
+class OrderBatchWriterTest {
+
+    @Autowired
+    private OrderBatchWriter orderBatchWriter;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SnowflakeIdGenerator orderIdGenerator;
+
+    /**
+     * Test 1: A full batch is written without waiting for max-delay, each future gets its own order's id after the commit
+     */
+    @Test
+    void testSubmit_FullBatch_ShouldCompleteAfterCommitWithOrderIds() throws Exception {
+        // ARRANGE
+        Order first = newOrder(1L);
+        Order second = newOrder(2L);
+        Order third = newOrder(3L);
+
+        // ACT
+        CompletableFuture<Long> firstSaved = orderBatchWriter.submit(first);
+        CompletableFuture<Long> secondSaved = orderBatchWriter.submit(second);
+        CompletableFuture<Long> thirdSaved = orderBatchWriter.submit(third);
+        CompletableFuture<Boolean> firstStored = storedWhenCompleted(firstSaved);
+        CompletableFuture<Boolean> secondStored = storedWhenCompleted(secondSaved);
+        CompletableFuture<Boolean> thirdStored = storedWhenCompleted(thirdSaved);
+
+        // ASSERT
+        // well within max-delay, the batch size triggered the write
+        assertTrue(firstStored.get(500, TimeUnit.MILLISECONDS));
+        assertTrue(secondStored.get(500, TimeUnit.MILLISECONDS));
+        assertTrue(thirdStored.get(500, TimeUnit.MILLISECONDS));
+        assertEquals(first.getOrderId(), firstSaved.get());
+        assertEquals(second.getOrderId(), secondSaved.get());
+        assertEquals(third.getOrderId(), thirdSaved.get());
+        assertEquals(2L, orderRepository.findById(second.getOrderId()).orElseThrow().getProductId());
+    }
+
+    /**
+     * Test 2: A lone order waits for max-delay, then is written
+     */
+    @Test
+    void testSubmit_SingleOrder_ShouldWaitForMaxDelay() throws Exception {
+        // ACT
+        Order order = newOrder(1L);
+        CompletableFuture<Long> saved = orderBatchWriter.submit(order);
+
+        // ASSERT
+        Thread.sleep(300);
+        assertFalse(saved.isDone());
+        assertEquals(order.getOrderId(), saved.get(5, TimeUnit.SECONDS));
+        assertTrue(orderRepository.existsById(order.getOrderId()));
+    }
+
+    /**
+     * Test 3: A batch with one bad order is written again order by order, only the bad one fails
+     */
+    @Test
+    void testSubmit_OneBadOrder_ShouldFailOnlyThatOrder() throws Exception {
+        // ARRANGE
+        Order good = newOrder(1L);
+        Order bad = newOrder(2L);
+        // longer than the column, makes its row fail the insert
+        bad.setFailureReason("x".repeat(1000));
+        Order alsoGood = newOrder(3L);
+
+        // ACT
+        CompletableFuture<Long> goodSaved = orderBatchWriter.submit(good);
+        CompletableFuture<Long> badSaved = orderBatchWriter.submit(bad);
+        CompletableFuture<Long> alsoGoodSaved = orderBatchWriter.submit(alsoGood);
+
+        // ASSERT
+        assertEquals(good.getOrderId(), goodSaved.get(5, TimeUnit.SECONDS));
+        assertEquals(alsoGood.getOrderId(), alsoGoodSaved.get(5, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class, () -> badSaved.get(5, TimeUnit.SECONDS));
+        assertTrue(orderRepository.existsById(good.getOrderId()));
+        assertTrue(orderRepository.existsById(alsoGood.getOrderId()));
+        assertFalse(orderRepository.existsById(bad.getOrderId()));
+    }
+
+    /**
+     * Test 4: Stopping writes what is still queued, later orders are refused
+     */
+    @Test
+    @DirtiesContext
+    void testStop_QueuedOrders_ShouldBeWrittenThenRefuseNewOnes() throws Exception {
+        // ARRANGE
+        // fewer than a batch, still waiting for max-delay
+        Order first = newOrder(1L);
+        Order second = newOrder(2L);
+        CompletableFuture<Long> firstSaved = orderBatchWriter.submit(first);
+        CompletableFuture<Long> secondSaved = orderBatchWriter.submit(second);
+
+        // ACT
+        orderBatchWriter.stop();
+
+        // ASSERT
+        assertEquals(first.getOrderId(), firstSaved.getNow(null));
+        assertEquals(second.getOrderId(), secondSaved.getNow(null));
+        assertTrue(orderRepository.existsById(first.getOrderId()));
+        assertTrue(orderRepository.existsById(second.getOrderId()));
+        assertFalse(orderBatchWriter.hasCapacity());
+        ExecutionException ex = assertThrows(ExecutionException.class,
+                () -> orderBatchWriter.submit(newOrder(3L)).get(1, TimeUnit.SECONDS));
+        assertEquals("ORDER_WRITER_BUSY", ((CustomExeption) ex.getCause()).getErrorCode());
+    }
+
+    /**
+     * Test 5: Timestamps are stored as UTC like Hibernate stores them, whatever the JVM's default zone
+     */
+    @Test
+    void testSubmit_NonUtcDefaultZone_ShouldReadBackTheSameInstants() throws Exception {
+        TimeZone defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        try {
+            // ARRANGE
+            Instant orderDate = Instant.parse("2026-01-15T12:00:00.123456Z");
+            Order order = newOrder(1L);
+            order.setOrderDate(orderDate);
+            // the same instant written by JPA
+            Order twin = newOrder(1L);
+            twin.setOrderId(orderIdGenerator.nextId());
+            twin.setOrderDate(orderDate);
+            orderRepository.save(twin);
+
+            // ACT
+            Long orderId = orderBatchWriter.submit(order).get(5, TimeUnit.SECONDS);
+
+            // ASSERT
+            assertEquals(orderDate, orderRepository.findById(orderId).orElseThrow().getOrderDate());
+            assertEquals(storedOrderDate(twin.getOrderId()), storedOrderDate(orderId));
+            OutboxEvent event = outboxEventRepository.findAll().stream()
+                    .filter(outboxEvent -> orderId.equals(outboxEvent.getAggregateId()))
+                    .findFirst().orElseThrow();
+            assertTrue(Duration.between(event.getCreatedAt(), Instant.now()).abs().toSeconds() < 60);
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+
+    /**
+     * Test 6: A cancelled order is dropped from its batch and fails with ORDER_WRITER_BUSY, a written one can't be cancelled
+     */
+    @Test
+    void testCancel_QueuedOrder_ShouldNeverBeWritten() throws Exception {
+        // ARRANGE
+        // fewer than a batch, both wait for max-delay
+        Order cancelled = newOrder(1L);
+        Order written = newOrder(2L);
+        CompletableFuture<Long> cancelledSaved = orderBatchWriter.submit(cancelled);
+        CompletableFuture<Long> writtenSaved = orderBatchWriter.submit(written);
+
+        // ACT
+        boolean cancelledInTime = orderBatchWriter.cancel(cancelledSaved);
+
+        // ASSERT
+        assertTrue(cancelledInTime);
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> cancelledSaved.get(1, TimeUnit.SECONDS));
+        assertEquals("ORDER_WRITER_BUSY", ((CustomExeption) ex.getCause()).getErrorCode());
+        assertEquals(written.getOrderId(), writtenSaved.get(5, TimeUnit.SECONDS));
+        assertFalse(orderBatchWriter.cancel(writtenSaved));
+        assertFalse(orderRepository.existsById(cancelled.getOrderId()));
+        assertTrue(orderRepository.existsById(written.getOrderId()));
+    }
+
+    // the column as the database holds it, not converted back by Hibernate
+    private String storedOrderDate(Long orderId) {
+        return jdbcTemplate.queryForObject("select cast(order_date as varchar(64)) from orders where order_id = ?", String.class, orderId);
+    }
+
+    // checked on the thread that completes the future, so it sees what was committed at that moment
+    private CompletableFuture<Boolean> storedWhenCompleted(CompletableFuture<Long> saved) {
+        return saved.thenApply(orderId -> orderRepository.existsById(orderId));
+    }
+
+    private static Order newOrder(Long productId) {
+        Order order = new Order();
+        order.setProductId(productId);
+        order.setQuantity(1L);
+        order.setAmount(4.99);
+        order.setOrderDate(Instant.now());
+        order.setOrderStatus(OrderStatus.CREATED.name());
+        return order;
+    }
+}
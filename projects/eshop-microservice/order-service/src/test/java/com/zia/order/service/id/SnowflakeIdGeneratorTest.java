@@ -0,0 +1,105 @@
+package com.zia.order.service.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit Tests for SnowflakeIdGenerator
+ * Tests the bit layout, ordering, sequence overflow, clock steps and concurrent use
+ */
+class SnowflakeIdGeneratorTest {
+
+    /**
+     * Test 1: An id carries the worker id and the time it was made
+     */
+    @Test
+    void testNextId_ShouldEncodeWorkerAndTimestamp() {
+        long now = Instant.parse("2026-03-01T12:00:00Z").toEpochMilli();
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(37, () -> now);
+
+        long id = generator.nextId();
+
+        assertEquals(37, (id >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_WORKER_ID);
+        assertEquals(Instant.ofEpochMilli(now), SnowflakeIdGenerator.timestampOf(id));
+        assertTrue(id > 0);
+    }
+
+    /**
+     * Test 2: A full millisecond borrows the next one instead of repeating ids,
+     * and a clock that steps back never produces a smaller id
+     */
+    @Test
+    void testNextId_SequenceOverflowAndClockStepBack_ShouldKeepIncreasing() {
+        AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.EPOCH + 1_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get);
+
+        long previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            if (i == 5_000) {
+                clock.addAndGet(-500);
+            }
+            long id = generator.nextId();
+            assertTrue(id > previous, "ids must increase");
+            previous = id;
+        }
+    }
+
+    /**
+     * Test 3: Threads sharing one generator never get the same id
+     */
+    @Test
+    void testNextId_ConcurrentCallers_ShouldBeUnique() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    ids.add(generator.nextId());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(8 * 50_000, ids.size());
+    }
+
+    /**
+     * Test 4: Different workers in the same millisecond get different ids
+     */
+    @Test
+    void testNextId_DifferentWorkers_ShouldNotCollide() {
+        long now = SnowflakeIdGenerator.EPOCH + 42;
+        Set<Long> ids = new HashSet<>();
+        for (int worker = 0; worker <= SnowflakeIdGenerator.MAX_WORKER_ID; worker++) {
+            ids.add(new SnowflakeIdGenerator(worker, () -> now).nextId());
+        }
+        assertEquals(SnowflakeIdGenerator.MAX_WORKER_ID + 1, ids.size());
+    }
+
+    /**
+     * Test 5: Worker ids outside the 10 bits are rejected
+     */
+    @Test
+    void testConstructor_InvalidWorkerId_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID + 1));
+    }
+}
@@ -0,0 +1,131 @@
+package com.zia.order.service.intake;
+
+import com.zia.order.service.entity.Order;
+import com.zia.order.service.id.SnowflakeIdGenerator;
+import com.zia.order.service.model.OrderStatus;
+import com.zia.order.service.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests for OrderIntake and POST /api/orders/async
+ * An accepted order is stored before it is queued, a full queue is refused, the sweep queues what was left behind
+ */
+@SpringBootTest(properties = {
+        "order.intake.workers=1",
+        "order.intake.queue-capacity=1"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OrderIntakeTest {
+
+    private static final String ORDER_JSON = "{\"productId\":1,\"quantity\":2,\"amount\":9.98,\"paymentMethod\":\"CASH\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderIntake orderIntake;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private SnowflakeIdGenerator orderIdGenerator;
+
+    // the saga is not under test here, only which orders reach it
+    @MockitoBean
+    private AcceptedOrderProcessor acceptedOrderProcessor;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+    }
+
+    /**
+     * Test 1: The order is stored as ACCEPTED, answered with 202 and its Location, then handed to a worker
+     */
+    @Test
+    void testPlaceOrderAsync_ShouldReturnAcceptedWithLocation() throws Exception {
+        // ACT
+        String location = mockMvc.perform(post("/api/orders/async").contentType(MediaType.APPLICATION_JSON).content(ORDER_JSON))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+        // ASSERT
+        assertNotNull(location);
+        Long orderId = Long.valueOf(location.substring("/api/orders/".length()));
+        assertEquals(OrderStatus.ACCEPTED.name(), orderRepository.findById(orderId).orElseThrow().getOrderStatus());
+        verify(acceptedOrderProcessor, timeout(5000)).process(orderId);
+    }
+
+    /**
+     * Test 2: With the worker busy and the queue full, the next order gets 503 and is not stored
+     */
+    @Test
+    void testPlaceOrderAsync_QueueFull_ShouldReturnServiceUnavailable() throws Exception {
+        // ARRANGE
+        CountDownLatch busy = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            busy.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(acceptedOrderProcessor).process(any());
+        try {
+            mockMvc.perform(post("/api/orders/async").contentType(MediaType.APPLICATION_JSON).content(ORDER_JSON))
+                    .andExpect(status().isAccepted());
+            // the only worker is now held, the next order fills the queue
+            verify(acceptedOrderProcessor, timeout(5000)).process(any());
+            mockMvc.perform(post("/api/orders/async").contentType(MediaType.APPLICATION_JSON).content(ORDER_JSON))
+                    .andExpect(status().isAccepted());
+
+            // ACT + ASSERT
+            mockMvc.perform(post("/api/orders/async").contentType(MediaType.APPLICATION_JSON).content(ORDER_JSON))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(jsonPath("$.statusCode").value("ORDER_QUEUE_FULL"));
+            assertEquals(2, orderRepository.count());
+        } finally {
+            busy.countDown();
+        }
+    }
+
+    /**
+     * Test 3: An ACCEPTED order that was never queued, e.g. left by a restart, is queued by the sweep
+     */
+    @Test
+    void testSweepAcceptedOrders_NotQueued_ShouldQueueAgain() {
+        // ARRANGE
+        Order order = new Order();
+        order.setOrderId(orderIdGenerator.nextId());
+        order.setProductId(1L);
+        order.setQuantity(2L);
+        order.setAmount(9.98);
+        order.setOrderDate(Instant.now());
+        order.setOrderStatus(OrderStatus.ACCEPTED.name());
+        order.setPaymentMethod("CASH");
+        orderRepository.save(order);
+
+        // ACT
+        orderIntake.sweepAcceptedOrders();
+
+        // ASSERT
+        verify(acceptedOrderProcessor, timeout(5000)).process(order.getOrderId());
+    }
+}
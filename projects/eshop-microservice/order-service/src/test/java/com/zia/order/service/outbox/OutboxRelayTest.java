@@ -0,0 +1,144 @@
+package com.zia.order.service.outbox;
+
+import com.zia.order.service.entity.Order;
+import com.zia.order.service.entity.OutboxEvent;
+import com.zia.order.service.id.SnowflakeIdGenerator;
+import com.zia.order.service.model.OrderStatus;
+import com.zia.order.service.repository.OrderRepository;
+import com.zia.order.service.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Tests for Outbox and OutboxRelay
+ * An event exists exactly when its order change committed, and is only marked published once the sink took it
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OutboxRelayTest {
+
+    @Autowired
+    private Outbox outbox;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @MockitoSpyBean
+    private InMemoryOutboxSink outboxSink;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private SnowflakeIdGenerator orderIdGenerator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository.deleteAll();
+        outboxSink.clear();
+    }
+
+    /**
+     * Test 1: The event commits together with the order
+     */
+    @Test
+    void testOrderChanged_Committed_ShouldStoreEvent() {
+        // ACT
+        Order order = saveOrderWithEvent(false);
+
+        // ASSERT
+        assertTrue(orderRepository.existsById(order.getOrderId()));
+        List<OutboxEvent> events = outboxEventRepository.findAll();
+        assertEquals(1, events.size());
+        assertEquals(order.getOrderId(), events.get(0).getAggregateId());
+        assertEquals("ORDER_CREATED", events.get(0).getEventType());
+        assertNull(events.get(0).getPublishedAt());
+    }
+
+    /**
+     * Test 2: A rolled back order leaves no event behind
+     */
+    @Test
+    void testOrderChanged_RolledBack_ShouldStoreNothing() {
+        // ACT
+        Order order = saveOrderWithEvent(true);
+
+        // ASSERT
+        assertFalse(orderRepository.existsById(order.getOrderId()));
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+    /**
+     * Test 3: The relay hands the events to the sink and marks them published
+     */
+    @Test
+    void testRelayBatch_ShouldPublishAndMarkEvents() {
+        // ARRANGE
+        Order first = saveOrderWithEvent(false);
+        Order second = saveOrderWithEvent(false);
+
+        // ACT
+        int published = outboxRelay.relayBatch();
+
+        // ASSERT
+        assertEquals(2, published);
+        assertEquals(List.of(first.getOrderId(), second.getOrderId()),
+                outboxSink.getPublished().stream().map(OutboxEvent::getAggregateId).toList());
+        assertTrue(outboxEventRepository.findAll().stream().allMatch(event -> event.getPublishedAt() != null));
+        // nothing left for the next poll
+        assertEquals(0, outboxRelay.relayBatch());
+    }
+
+    /**
+     * Test 4: A failing sink leaves the batch unpublished for the next poll
+     */
+    @Test
+    void testRelayBatch_SinkFails_ShouldLeaveEventsUnpublished() throws Exception {
+        // ARRANGE
+        saveOrderWithEvent(false);
+        doThrow(new IllegalStateException("broker down")).when(outboxSink).publish(anyList());
+
+        // ACT
+        assertThrows(IllegalStateException.class, () -> outboxRelay.relayBatch());
+
+        // ASSERT
+        assertTrue(outboxSink.getPublished().isEmpty());
+        assertTrue(outboxEventRepository.findAll().stream().allMatch(event -> event.getPublishedAt() == null));
+    }
+
+    private Order saveOrderWithEvent(boolean rollback) {
+        Order order = new Order();
+        order.setOrderId(orderIdGenerator.nextId());
+        order.setProductId(1L);
+        order.setQuantity(2L);
+        order.setAmount(9.98);
+        order.setOrderDate(Instant.now());
+        order.setOrderStatus(OrderStatus.CREATED.name());
+        transactionTemplate.executeWithoutResult(status -> {
+            orderRepository.save(order);
+            outbox.orderChanged(order);
+            if (rollback) {
+                status.setRollbackOnly();
+            }
+        });
+        return order;
+    }
+}
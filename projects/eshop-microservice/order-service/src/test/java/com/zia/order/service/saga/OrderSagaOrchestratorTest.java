@@ -0,0 +1,219 @@
+package com.zia.order.service.saga;
+
+import com.zia.order.service.entity.Order;
+import com.zia.order.service.entity.OrderSaga;
+import com.zia.order.service.exeption.CustomExeption;
+import com.zia.order.service.external.client.PaymentService;
+import com.zia.order.service.external.client.ReservationService;
+import com.zia.order.service.external.response.ReservationResponse;
+import com.zia.order.service.id.SnowflakeIdGenerator;
+import com.zia.order.service.model.OrderStatus;
+import com.zia.order.service.repository.OrderRepository;
+import com.zia.order.service.repository.OrderSagaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for OrderSagaOrchestrator
+ * Every saga ends in one state with its order moved along, whatever the other services answer
+ */
+@SpringBootTest(properties = {
+        "order.saga.max-attempts=3",
+        "order.saga.backoff=10ms",
+        "order.saga.max-backoff=50ms"
+})
+@ActiveProfiles("test")
+class OrderSagaOrchestratorTest {
+
+    private static final Long RESERVATION_ID = 77L;
+    private static final Long TRANSACTION_ID = 900L;
+
+    @Autowired
+    private OrderSagaOrchestrator orderSagaOrchestrator;
+
+    @Autowired
+    private OrderSagaRepository orderSagaRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private SnowflakeIdGenerator orderIdGenerator;
+
+    @MockitoBean
+    private ReservationService reservationService;
+
+    @MockitoBean
+    private PaymentService paymentService;
+
+    @BeforeEach
+    void setUp() {
+        when(reservationService.reserve(any())).thenReturn(ResponseEntity.ok(reservation("PENDING")));
+        when(reservationService.confirm(RESERVATION_ID)).thenReturn(ResponseEntity.ok(reservation("CONFIRMED")));
+        when(reservationService.release(RESERVATION_ID)).thenReturn(ResponseEntity.ok(reservation("RELEASED")));
+        when(paymentService.doPayment(any())).thenReturn(ResponseEntity.ok(TRANSACTION_ID));
+    }
+
+    /**
+     * Test 1: A refused payment releases the reservation and fails the order with the payment's error code
+     */
+    @Test
+    void testRun_PaymentRefused_ShouldReleaseAndFailOrder() throws InterruptedException {
+        // ARRANGE
+        when(paymentService.doPayment(any())).thenThrow(new CustomExeption("Card declined", "PAYMENT_DECLINED", 402));
+
+        // ACT
+        Long orderId = saveOrder();
+        startSaga(orderId);
+        OrderSaga orderSaga = awaitFinished(orderId);
+
+        // ASSERT
+        assertEquals(SagaState.ABORTED.name(), orderSaga.getState());
+        verify(reservationService).release(RESERVATION_ID);
+        verify(reservationService, never()).confirm(any());
+        Order order = orderRepository.findById(orderId).orElseThrow();
+        assertEquals(OrderStatus.PAYMENT_FAILED.name(), order.getOrderStatus());
+        assertEquals("PAYMENT_DECLINED", order.getFailureReason());
+    }
+
+    /**
+     * Test 2: Out of stock rejects the order without trying the payment
+     */
+    @Test
+    void testRun_OutOfStock_ShouldRejectOrder() throws InterruptedException {
+        // ARRANGE
+        when(reservationService.reserve(any())).thenThrow(new CustomExeption("Not enough stock", "INSUFFICIENT_QUANTITY", 404));
+
+        // ACT
+        Long orderId = saveOrder();
+        startSaga(orderId);
+        OrderSaga orderSaga = awaitFinished(orderId);
+
+        // ASSERT
+        assertEquals(SagaState.ABORTED.name(), orderSaga.getState());
+        verify(paymentService, never()).doPayment(any());
+        Order order = orderRepository.findById(orderId).orElseThrow();
+        assertEquals(OrderStatus.REJECTED.name(), order.getOrderStatus());
+        assertEquals("INSUFFICIENT_QUANTITY", order.getFailureReason());
+    }
+
+    /**
+     * Test 3: A paid order keeps retrying the confirm past max-attempts until product-service answers
+     */
+    @Test
+    void testRun_ConfirmUnavailable_ShouldRetryUntilConfirmed() throws InterruptedException {
+        // ARRANGE
+        CustomExeption unavailable = new CustomExeption("Product service unavailable", "UNAVAILABLE", 503);
+        when(reservationService.confirm(RESERVATION_ID))
+                .thenThrow(unavailable, unavailable, unavailable, unavailable)
+                .thenReturn(ResponseEntity.ok(reservation("CONFIRMED")));
+
+        // ACT
+        Long orderId = saveOrder();
+        startSaga(orderId);
+        OrderSaga orderSaga = awaitFinished(orderId);
+
+        // ASSERT
+        assertEquals(SagaState.COMPLETED.name(), orderSaga.getState());
+        assertEquals(TRANSACTION_ID, orderSaga.getTransactionId());
+        verify(reservationService, times(5)).confirm(RESERVATION_ID);
+        verify(reservationService, never()).release(any());
+        assertEquals(OrderStatus.PLACED.name(), orderRepository.findById(orderId).orElseThrow().getOrderStatus());
+    }
+
+    /**
+     * Test 4: A saga whose runner died mid-lease is resumed by the sweep from the step it was on
+     */
+    @Test
+    void testSweep_ExpiredLease_ShouldResumeSaga() throws InterruptedException {
+        // ARRANGE
+        // reserved, then the instance died while paying; its lease has run out
+        Long orderId = saveOrder();
+        OrderSaga orderSaga = new OrderSaga();
+        orderSaga.setOrderId(orderId);
+        orderSaga.setState(SagaState.PAYING.name());
+        orderSaga.setReservationId(RESERVATION_ID);
+        orderSaga.setNextAttemptAt(Instant.now().minusSeconds(1));
+        orderSaga.setUpdatedAt(Instant.now().minusSeconds(61));
+        orderSagaRepository.save(orderSaga);
+
+        // ACT
+        orderSagaOrchestrator.sweepDueSagas();
+        orderSaga = awaitFinished(orderId);
+
+        // ASSERT
+        assertEquals(SagaState.COMPLETED.name(), orderSaga.getState());
+        verify(reservationService, never()).reserve(any());
+        verify(paymentService).doPayment(any());
+        assertEquals(OrderStatus.PLACED.name(), orderRepository.findById(orderId).orElseThrow().getOrderStatus());
+    }
+
+    /**
+     * Test 5: A runner whose saga was leased again meanwhile loses on @Version and doesn't move it on
+     */
+    @Test
+    void testRun_LeaseTakenOver_ShouldNotAdvance() {
+        // ARRANGE
+        Long orderId = saveOrder();
+        // while the reserve call is out, another runner takes the saga over
+        when(reservationService.reserve(any())).thenAnswer(invocation -> {
+            OrderSaga other = orderSagaRepository.findById(orderId).orElseThrow();
+            other.setNextAttemptAt(Instant.now().plusSeconds(60));
+            orderSagaRepository.save(other);
+            return ResponseEntity.ok(reservation("PENDING"));
+        });
+
+        // ACT
+        startSaga(orderId);
+
+        // ASSERT
+        verify(reservationService, timeout(5000)).reserve(any());
+        verify(paymentService, after(500).never()).doPayment(any());
+        OrderSaga orderSaga = orderSagaRepository.findById(orderId).orElseThrow();
+        assertEquals(SagaState.RESERVING.name(), orderSaga.getState());
+        assertNull(orderSaga.getReservationId());
+    }
+
+    private void startSaga(Long orderId) {
+        orderSagaOrchestrator.create(orderId);
+        orderSagaOrchestrator.schedule(orderId, 0);
+    }
+
+    // as AcceptedOrderProcessor leaves it
+    private Long saveOrder() {
+        Order order = new Order();
+        order.setOrderId(orderIdGenerator.nextId());
+        order.setProductId(1L);
+        order.setQuantity(2L);
+        order.setAmount(9.98);
+        order.setOrderDate(Instant.now());
+        order.setOrderStatus(OrderStatus.PROCESSING.name());
+        order.setPaymentMethod("CASH");
+        return orderRepository.save(order).getOrderId();
+    }
+
+    private OrderSaga awaitFinished(Long orderId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        OrderSaga orderSaga = orderSagaRepository.findById(orderId).orElseThrow();
+        while (SagaState.valueOf(orderSaga.getState()).isActive() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            orderSaga = orderSagaRepository.findById(orderId).orElseThrow();
+        }
+        return orderSaga;
+    }
+
+    private static ReservationResponse reservation(String status) {
+        return new ReservationResponse(RESERVATION_ID, 1L, 2L, status, Instant.now().plusSeconds(900));
+    }
+}
@@ -0,0 +1,36 @@
+package com.zia.payment.service.config;
+
+import com.netflix.appinfo.EurekaInstanceConfig;
+import com.zia.payment.service.id.SnowflakeIdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IdGeneratorConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(IdGeneratorConfig.class);
+
+    // payment.id.worker-id has to be set per instance. Deriving it from the Eureka instance id can give two
+    // instances the same worker and so duplicate ids, which is only accepted where payment.id.derive-worker-id
+    // allows it, e.g. the dev profile
+    @Bean
+    public SnowflakeIdGenerator transactionIdGenerator(@Value("${payment.id.worker-id:-1}") int workerId,
+                                                       @Value("${payment.id.derive-worker-id:false}") boolean deriveWorkerId,
+                                                       ObjectProvider<EurekaInstanceConfig> eurekaInstanceConfig) {
+        if (workerId < 0) {
+            if (!deriveWorkerId) {
+                throw new IllegalStateException("payment.id.worker-id is not set; give every instance its own worker id (0-"
+                        + SnowflakeIdGenerator.MAX_WORKER_ID + ") or set payment.id.derive-worker-id=true for a single local instance");
+            }
+            EurekaInstanceConfig instanceConfig = eurekaInstanceConfig.getIfAvailable();
+            String instanceId = instanceConfig == null ? null : instanceConfig.getInstanceId();
+            workerId = instanceId == null ? 0 : Math.floorMod(instanceId.hashCode(), SnowflakeIdGenerator.MAX_WORKER_ID + 1);
+            log.warn("payment.id.worker-id is not set, using worker id {} from instance id {}", workerId, instanceId);
+        }
+        return new SnowflakeIdGenerator(workerId);
+    }
+}
@@ -12,14 +12,14 @@ import java.time.Instant;
 @NoArgsConstructor
 @Entity
 @Table(
-        name = "transaction_details"
+        name = "transaction_details",
+        // one payment per order, also when two retries of the same payment race each other
+        uniqueConstraints = @UniqueConstraint(name = "uk_transaction_details_order", columnNames = "order_id")
 )
 public class TransactionDetail {
 
+    // from SnowflakeIdGenerator, assigned before the insert
     @Id
-    @GeneratedValue(
-            strategy = GenerationType.IDENTITY
-    )
     private Long id;
 
     @Column(name = "order_id", nullable = false)
@@ -0,0 +1,75 @@
+package com.zia.payment.service.id;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered 64-bit ids made without a database round trip:
+ * 41 bits of milliseconds since EPOCH, 10 bits of worker id, 12 bits of sequence within the millisecond.
+ * Ids of one worker always increase, so inserts append to the end of the primary key index.
+ *
+ * Lock-free: the last issued (millisecond, sequence) pair lives in one AtomicLong and is advanced by CAS.
+ * When a millisecond runs out of sequence numbers, or the clock steps back, the generator carries on from
+ * the next millisecond instead of waiting, and lets the wall clock catch up.
+ * Two workers must never share a worker id.
+ */
+public class SnowflakeIdGenerator {
+
+    // 2025-01-01T00:00:00Z, good for about 69 years
+    public static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+    static final int WORKER_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    public static final int MAX_WORKER_ID = (1 << WORKER_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long MAX_TIMESTAMP = (1L << 41) - 1;
+
+    private final long workerId;
+    private final LongSupplier clock;
+    // (milliseconds since EPOCH << SEQUENCE_BITS) | sequence of the last id
+    private final AtomicLong last;
+
+    public SnowflakeIdGenerator(long workerId) {
+        this(workerId, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(long workerId, LongSupplier clock) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("Worker id must be between 0 and " + MAX_WORKER_ID + ", was " + workerId);
+        }
+        this.workerId = workerId;
+        this.clock = clock;
+        this.last = new AtomicLong((clock.getAsLong() - EPOCH) << SEQUENCE_BITS);
+    }
+
+    public long nextId() {
+        while (true) {
+            long previous = last.get();
+            long now = clock.getAsLong() - EPOCH;
+            long next;
+            if (now > previous >>> SEQUENCE_BITS) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                // same millisecond, or the clock went back: next sequence, borrowing the next millisecond when full
+                next = previous + 1;
+            }
+            if (last.compareAndSet(previous, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                if (timestamp > MAX_TIMESTAMP) {
+                    throw new IllegalStateException("Snowflake timestamp overflow");
+                }
+                return (timestamp << (WORKER_BITS + SEQUENCE_BITS)) | (workerId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    // when the id was made, to the millisecond
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli((id >>> (WORKER_BITS + SEQUENCE_BITS)) + EPOCH);
+    }
+}
@@ -3,5 +3,8 @@ package com.zia.payment.service.repository;
 import com.zia.payment.service.entity.TransactionDetail;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Optional;
+
 public interface PaymentRepository extends JpaRepository<TransactionDetail, Long> {
+    Optional<TransactionDetail> findFirstByOrderId(Long orderId);
 }
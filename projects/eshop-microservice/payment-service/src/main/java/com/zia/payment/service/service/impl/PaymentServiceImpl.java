@@ -1,13 +1,19 @@
 package com.zia.payment.service.service.impl;
 
 import com.zia.payment.service.entity.TransactionDetail;
+import com.zia.payment.service.id.SnowflakeIdGenerator;
 import com.zia.payment.service.model.PaymentRequest;
 import com.zia.payment.service.repository.PaymentRepository;
 import com.zia.payment.service.service.PaymentService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
+import java.util.Optional;
 
 @Service
 public class PaymentServiceImpl implements PaymentService {
@@ -15,8 +21,22 @@ public class PaymentServiceImpl implements PaymentService {
     @Autowired
     private PaymentRepository paymentRepository;
 
+    @Autowired
+    private SnowflakeIdGenerator transactionIdGenerator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Override
     public Long doPayment(PaymentRequest paymentRequest) {
+        // order-service retries a payment whose answer it didn't get, the order is charged once
+        Optional<TransactionDetail> existing = paymentRepository.findFirstByOrderId(paymentRequest.getOrderId());
+        if (existing.isPresent()) {
+            return existing.get().getId();
+        }
         TransactionDetail transactionDetail = new TransactionDetail();
         transactionDetail.setOrderId(paymentRequest.getOrderId());
         transactionDetail.setAmount(paymentRequest.getAmount());
@@ -25,7 +45,17 @@ public class PaymentServiceImpl implements PaymentService {
         transactionDetail.setReferenceNumber(paymentRequest.getReferenceNumber());
         transactionDetail.setPaymentStatus("SUCCESS");
 
-        transactionDetail = paymentRepository.save(transactionDetail);
+        // persist, not save: with the id already set save would SELECT it first to decide between insert and update
+        transactionDetail.setId(transactionIdGenerator.nextId());
+        try {
+            // own transaction, so a duplicate surfaces at its commit and the lookup below runs in a fresh one
+            transactionTemplate.executeWithoutResult(status -> entityManager.persist(transactionDetail));
+        } catch (DataIntegrityViolationException ex) {
+            // a concurrent retry of the same order inserted first, the unique order_id kept this one out
+            return paymentRepository.findFirstByOrderId(paymentRequest.getOrderId())
+                    .map(TransactionDetail::getId)
+                    .orElseThrow(() -> ex);
+        }
         return transactionDetail.getId();
     }
 }
@@ -3,7 +3,7 @@ package com.zia.payment.service;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "payment.id.worker-id=0")
 class PaymentServiceApplicationTests {
 
 	@Test
@@ -0,0 +1,54 @@
+package com.zia.product.service.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@EnableCaching
+@Configuration
+public class CacheConfig {
+
+    public static final String PRODUCT_CACHE = "products";
+
+    @Value("${product.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${product.cache.expire-after-write:60s}")
+    private Duration expireAfterWrite;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager(PRODUCT_CACHE) {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new EvictionCheckedCache(super.adaptCaffeineCache(name, cache));
+            }
+        };
+        caffeineCacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                // hit/miss counters picked up by the actuator cache metrics
+                .recordStats());
+        // evictions and puts are applied after the surrounding transaction commits; that alone doesn't stop
+        // a read that started before a write from putting the old stock back, EvictionCheckedCache does
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+
+    // the actuator only binds CaffeineCache itself, the wrapper's stats come from the same native cache
+    @Bean
+    @SuppressWarnings("unchecked")
+    public CacheMeterBinderProvider<EvictionCheckedCache> evictionCheckedCacheMeterBinderProvider() {
+        return (cache, tags) -> new CaffeineCacheMetrics<>(
+                (com.github.benmanes.caffeine.cache.Cache<Object, Object>) cache.getNativeCache(), cache.getName(), tags);
+    }
+}
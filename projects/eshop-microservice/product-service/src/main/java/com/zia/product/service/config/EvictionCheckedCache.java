@@ -0,0 +1,128 @@
+package com.zia.product.service.config;
+
+import org.springframework.cache.Cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Drops a put when the key was evicted after the same thread's cache miss.
+ *
+ * A read-only @Cacheable read misses, loads the row and puts it after its own commit, and a stock write
+ * evicts after its commit. If the write commits while the read is still running, the read's put can land
+ * after the evict and would serve the old stock until expire-after-write. Each eviction bumps a generation
+ * counter; the miss remembers the generation it saw and the put is only applied if it hasn't moved since.
+ * Generations are kept per stripe, not per key, so an unrelated eviction can only cost an extra miss.
+ */
+class EvictionCheckedCache implements Cache {
+
+    private static final int STRIPES = 1024;
+    // misses that were never followed by a put (unknown products, failed reads)
+    private static final int MAX_PENDING_MISSES = 1024;
+
+    private final Cache delegate;
+    private final AtomicLongArray evictions = new AtomicLongArray(STRIPES);
+    private final AtomicLong clears = new AtomicLong();
+    private final ThreadLocal<Map<Object, Long>> pendingMisses = ThreadLocal.withInitial(HashMap::new);
+
+    EvictionCheckedCache(Cache delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper valueWrapper = delegate.get(key);
+        if (valueWrapper == null) {
+            recordMiss(key);
+        }
+        return valueWrapper;
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        T value = delegate.get(key, type);
+        if (value == null) {
+            recordMiss(key);
+        }
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // loaded under the cache's own lock for the key, an evict waits for it
+        return delegate.get(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Long generation = pendingMisses.get().remove(key);
+        // a put without a miss first, e.g. @CachePut of a new product, has nothing to race with
+        if (generation == null || generation == generation(key)) {
+            delegate.put(key, value);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Long generation = pendingMisses.get().remove(key);
+        if (generation != null && generation != generation(key)) {
+            return delegate.get(key);
+        }
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        evictions.incrementAndGet(stripe(key));
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        evictions.incrementAndGet(stripe(key));
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        clears.incrementAndGet();
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        clears.incrementAndGet();
+        return delegate.invalidate();
+    }
+
+    private void recordMiss(Object key) {
+        Map<Object, Long> misses = pendingMisses.get();
+        if (misses.size() >= MAX_PENDING_MISSES) {
+            misses.clear();
+        }
+        misses.put(key, generation(key));
+    }
+
+    // both counters only grow, so the sum changes whenever either does
+    private long generation(Object key) {
+        return evictions.get(stripe(key)) + clears.get();
+    }
+
+    private static int stripe(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+}
@@ -1,38 +1,143 @@
 package com.zia.product.service.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zia.product.service.dto.ProductBatchResponse;
+import com.zia.product.service.dto.ProductImportResult;
+import com.zia.product.service.dto.ProductPage;
+import com.zia.product.service.dto.ProductQuantityRequest;
 import com.zia.product.service.dto.ProductRequest;
 import com.zia.product.service.dto.ProductResponse;
+import com.zia.product.service.export.ExportFormat;
+import com.zia.product.service.export.ProductExporter;
+import com.zia.product.service.hotspot.HotProductTracker;
 import com.zia.product.service.service.ProductService;
+import com.zia.product.service.stream.StockStreamDispatcher;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RequestMapping("/api/products")
 @RestController
 public class ProductController {
 
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private HotProductTracker hotProductTracker;
+
+    @Autowired
+    private StockStreamDispatcher stockStreamDispatcher;
+
+    @Autowired
+    private ProductExporter productExporter;
+
     @PostMapping
     public ResponseEntity<ProductResponse> addProduct(@RequestBody ProductRequest productRequest) {
         ProductResponse productResponse = productService.addProduct(productRequest);
         return new ResponseEntity<>(productResponse, HttpStatus.CREATED);
     }
 
+    // accepts a JSON array or NDJSON (one product per line), rows are read one at a time
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON})
+    public ResponseEntity<ProductImportResult> importProducts(InputStream body) throws IOException {
+        try (MappingIterator<ProductRequest> productRequests = objectMapper.readerFor(ProductRequest.class).readValues(body)) {
+            ProductImportResult importResult = productService.importProducts(productRequests);
+            return new ResponseEntity<>(importResult, HttpStatus.CREATED);
+        }
+    }
+
     @GetMapping
     public ResponseEntity<List<ProductResponse>> getAllProducts(){
         List<ProductResponse> productResponses = productService.getAllProducts();
+        return ResponseEntity.ok().eTag(ProductETags.of(productResponses)).body(productResponses);
+    }
+
+    // http://localhost:9002/api/products/page?after=100&size=50
+    @GetMapping("/page")
+    public ResponseEntity<ProductPage> getProducts(@RequestParam(value = "after", required = false) Long afterId,
+                                                   @RequestParam(value = "size", required = false) Integer size){
+        ProductPage productPage = productService.getProducts(afterId, size);
+        return ResponseEntity.ok().eTag(ProductETags.of(productPage)).body(productPage);
+    }
+
+    // http://localhost:9002/api/products/filter?categoryId=3&minPrice=10&maxPrice=50&inStock=true&after=0&size=50
+    @GetMapping("/filter")
+    public ResponseEntity<ProductPage> filterProducts(@RequestParam(value = "categoryId", required = false) Long categoryId,
+                                                      @RequestParam(value = "minPrice", required = false) Double minPrice,
+                                                      @RequestParam(value = "maxPrice", required = false) Double maxPrice,
+                                                      @RequestParam(value = "inStock", required = false) Boolean inStock,
+                                                      @RequestParam(value = "after", required = false) Long afterId,
+                                                      @RequestParam(value = "size", required = false) Integer size){
+        ProductPage productPage = productService.filterProducts(categoryId, minPrice, maxPrice, inStock, afterId, size);
+        return ResponseEntity.ok().eTag(ProductETags.of(productPage)).body(productPage);
+    }
+
+    // one JSON object per line, written while the rows are read; same feed as /export?format=ndjson
+    @GetMapping(value = "/stream", produces = APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAllProducts(){
+        StreamingResponseBody body = outputStream -> productExporter.export(ExportFormat.NDJSON, outputStream);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON)).body(body);
+    }
+
+    // http://localhost:9002/api/products/export?format=csv
+    // catalog feed for search and marketing, rows go from the database cursor straight to the response
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(value = "format", defaultValue = "ndjson") String format){
+        ExportFormat exportFormat = ExportFormat.from(format);
+        StreamingResponseBody body = outputStream -> productExporter.export(exportFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products." + exportFormat.name().toLowerCase() + "\"")
+                .body(body);
+    }
+
+    // http://localhost:9002/api/products/by-ids?ids=3,1,2
+    @GetMapping("/by-ids")
+    public ResponseEntity<ProductBatchResponse> getProductsByIds(@RequestParam("ids") List<Long> productIds){
+        productIds.forEach(productId -> hotProductTracker.record(HotProductTracker.Operation.READ, productId));
+        ProductBatchResponse productBatchResponse = productService.getProductsByIds(productIds);
+        // the missing ids follow from the request and the products found
+        return ResponseEntity.ok().eTag(ProductETags.of(productBatchResponse.getProducts())).body(productBatchResponse);
+    }
+
+    // http://localhost:9002/api/products/stock-stream?ids=1,2,3
+    // "stock" events with {productId, quantity}, the current levels first and then every change
+    @GetMapping(value = "/stock-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStockLevels(@RequestParam("ids") List<Long> productIds){
+        return stockStreamDispatcher.subscribe(productIds);
+    }
+
+    // http://localhost:9002/api/products/search?q=wireless+mouse&limit=20
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductResponse>> searchProducts(@RequestParam("q") String query,
+                                                                @RequestParam(value = "limit", required = false) Integer limit){
+        List<ProductResponse> productResponses = productService.searchProducts(query, limit);
         return new ResponseEntity<>(productResponses, HttpStatus.OK);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponse> getProductById(@PathVariable("id") Long productId){
+        // counted here, cache hits never reach the service
+        hotProductTracker.record(HotProductTracker.Operation.READ, productId);
         ProductResponse productResponse = productService.getProductById(productId);
-        return new ResponseEntity<>(productResponse, HttpStatus.OK);
+        // with a matching If-None-Match Spring answers 304 and never serializes the body
+        return ResponseEntity.ok().eTag(ProductETags.of(productResponse)).body(productResponse);
     }
 
     // http://localhost:9002/api/products/1/reduce-quantrity?quantity=2
@@ -43,4 +148,34 @@ public class ProductController {
         return ResponseEntity.noContent().build();
     }
 
+    // http://localhost:9002/api/products/1/restock?quantity=20
+    @PutMapping("/{id}/restock")
+    public ResponseEntity<Void> restock(@PathVariable("id") Long productId,
+                                        @RequestParam("quantity") Long quantity){
+        productService.increaseQuantity(productId, quantity);
+        return ResponseEntity.noContent().build();
+    }
+
+    // reduces every line of a cart in one transaction, all or nothing
+    @PutMapping("/reduce-quantity")
+    public ResponseEntity<Void> reduceQuantities(@RequestBody List<ProductQuantityRequest> items){
+        productService.reduceQuantities(items);
+        return ResponseEntity.noContent().build();
+    }
+
+    // http://localhost:9002/api/products/1/shards?count=16
+    // splits the stock of a hot product over several rows so concurrent orders don't queue on one lock
+    @PutMapping("/{id}/shards")
+    public ResponseEntity<Void> enableStockSharding(@PathVariable("id") Long productId,
+                                                    @RequestParam("count") Integer shardCount){
+        productService.enableStockSharding(productId, shardCount);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/{id}/shards")
+    public ResponseEntity<Void> disableStockSharding(@PathVariable("id") Long productId){
+        productService.disableStockSharding(productId);
+        return ResponseEntity.noContent().build();
+    }
+
 }
@@ -0,0 +1,53 @@
+package com.zia.product.service.controller;
+
+import com.zia.product.service.dto.ProductPage;
+import com.zia.product.service.dto.ProductResponse;
+
+import java.util.List;
+
+/**
+ * Weak ETags computed from what identifies a product state: id, row version and stock.
+ * The quantity is part of it because the stock shards of a sharded product change without
+ * touching the product row. Nothing is serialized, the tags come from the DTO fields.
+ */
+final class ProductETags {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ProductETags() {
+    }
+
+    static String of(ProductResponse productResponse) {
+        return "W/\"" + productResponse.getProductId() + "-" + productResponse.getVersion() + "-" + productResponse.getQuantity() + "\"";
+    }
+
+    static String of(ProductPage productPage) {
+        long hash = mix(hashOf(productPage.getProducts()), productPage.getNextCursor());
+        return "W/\"p-" + Long.toHexString(hash) + "\"";
+    }
+
+    static String of(List<ProductResponse> productResponses) {
+        return "W/\"l-" + Long.toHexString(hashOf(productResponses)) + "\"";
+    }
+
+    // 64-bit FNV-1a over the id, version and quantity of every row, in page order
+    private static long hashOf(List<ProductResponse> productResponses) {
+        long hash = FNV_OFFSET;
+        for (ProductResponse productResponse : productResponses) {
+            hash = mix(hash, productResponse.getProductId());
+            hash = mix(hash, productResponse.getVersion());
+            hash = mix(hash, productResponse.getQuantity());
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, Long value) {
+        long bits = value == null ? Long.MIN_VALUE : value;
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash ^= (bits >>> (i * 8)) & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
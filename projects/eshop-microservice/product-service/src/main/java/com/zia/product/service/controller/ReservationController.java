@@ -0,0 +1,42 @@
+package com.zia.product.service.controller;
+
+import com.zia.product.service.dto.ReservationRequest;
+import com.zia.product.service.dto.ReservationResponse;
+import com.zia.product.service.service.ReservationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RequestMapping("/api/reservations")
+@RestController
+public class ReservationController {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    // holds stock for ttlSeconds, it comes back automatically unless the reservation is confirmed
+    @PostMapping
+    public ResponseEntity<ReservationResponse> reserve(@RequestBody ReservationRequest reservationRequest) {
+        ReservationResponse reservationResponse = reservationService.reserve(reservationRequest);
+        return new ResponseEntity<>(reservationResponse, HttpStatus.CREATED);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ReservationResponse> getReservation(@PathVariable("id") Long reservationId){
+        ReservationResponse reservationResponse = reservationService.getReservation(reservationId);
+        return new ResponseEntity<>(reservationResponse, HttpStatus.OK);
+    }
+
+    @PutMapping("/{id}/confirm")
+    public ResponseEntity<ReservationResponse> confirm(@PathVariable("id") Long reservationId){
+        ReservationResponse reservationResponse = reservationService.confirm(reservationId);
+        return new ResponseEntity<>(reservationResponse, HttpStatus.OK);
+    }
+
+    @PutMapping("/{id}/release")
+    public ResponseEntity<ReservationResponse> release(@PathVariable("id") Long reservationId){
+        ReservationResponse reservationResponse = reservationService.release(reservationId);
+        return new ResponseEntity<>(reservationResponse, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,16 @@
+package com.zia.product.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductBatchResponse {
+    // in the order the ids were requested
+    private List<ProductResponse> products;
+    private List<Long> missingIds;
+}
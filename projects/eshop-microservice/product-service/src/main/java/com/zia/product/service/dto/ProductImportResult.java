@@ -0,0 +1,14 @@
+package com.zia.product.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductImportResult {
+    private long importedCount;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+}
@@ -0,0 +1,16 @@
+package com.zia.product.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductPage {
+    private List<ProductResponse> products;
+    // pass it back as "after" to get the next page, null on the last page
+    private Long nextCursor;
+}
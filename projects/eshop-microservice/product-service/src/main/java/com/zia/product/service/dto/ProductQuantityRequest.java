@@ -0,0 +1,13 @@
+package com.zia.product.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductQuantityRequest {
+    private Long productId;
+    private Long quantity;
+}
@@ -10,7 +10,9 @@ import lombok.NoArgsConstructor;
 public class ProductRequest {
 
     private String name;
+    private String description;
     private Double price;
     private Long quantity;
+    private Long categoryId;
 
 }
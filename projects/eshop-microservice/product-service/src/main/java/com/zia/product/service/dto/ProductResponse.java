@@ -1,5 +1,6 @@
 package com.zia.product.service.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,4 +13,7 @@ public class ProductResponse {
     private String name;
     private Double price;
     private Long quantity;
+    // row version, only used for the ETag
+    @JsonIgnore
+    private Long version;
 }
@@ -0,0 +1,17 @@
+package com.zia.product.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservationRequest {
+    private Long productId;
+    private Long quantity;
+    // optional, product.reservation.default-ttl when missing
+    private Long ttlSeconds;
+    // optional, a second request with the same key gets the first one's reservation instead of a new hold
+    private String idempotencyKey;
+}
@@ -0,0 +1,19 @@
+package com.zia.product.service.dto;
+
+import com.zia.product.service.entity.ReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservationResponse {
+    private Long reservationId;
+    private Long productId;
+    private Long quantity;
+    private ReservationStatus status;
+    private Instant expiresAt;
+}
@@ -11,18 +11,41 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Entity
 @Table(
-        name = "products"
+        name = "products",
+        // composite indexes for the filtered listing, product_id last so keyset pages can seek inside them
+        indexes = {
+                @Index(name = "idx_products_category_product", columnList = "category_id, product_id"),
+                @Index(name = "idx_products_category_price", columnList = "category_id, price, product_id"),
+                @Index(name = "idx_products_price", columnList = "price, product_id")
+        }
 )
 public class Product {
+    // pooled sequence instead of IDENTITY so Hibernate can batch inserts,
+    // ids are handed out 50 at a time without a round trip per row
     @Id
     @GeneratedValue(
-            strategy = GenerationType.IDENTITY
+            strategy = GenerationType.SEQUENCE,
+            generator = "product_seq"
+    )
+    @SequenceGenerator(
+            name = "product_seq",
+            sequenceName = "product_seq",
+            allocationSize = 50
     )
     private Long productId;
     private String name;
-    private String description;
+    // the description lives in product_descriptions, see ProductDescription
     private Double price;
     private Long quantity;
     private Long categoryId;
 
+    // 0 = stock lives in quantity, N = stock is split over N rows of product_stock_shards
+    @Column(nullable = false, columnDefinition = "int default 0")
+    private int stockShards;
+
+    // bumped on every stock change, also by the atomic UPDATE statements
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
 }
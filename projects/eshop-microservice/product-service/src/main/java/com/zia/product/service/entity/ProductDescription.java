@@ -0,0 +1,34 @@
+package com.zia.product.service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+// long text of a product, kept out of the products table so listings and stock checks don't read it
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(
+        name = "product_descriptions"
+)
+public class ProductDescription {
+    // same value as the product's id
+    @Id
+    private Long productId;
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "product_id")
+    @ToString.Exclude
+    private Product product;
+    @Lob
+    @Column(nullable = false)
+    private String description;
+
+    public ProductDescription(Product product, String description) {
+        this.product = product;
+        this.description = description;
+    }
+}
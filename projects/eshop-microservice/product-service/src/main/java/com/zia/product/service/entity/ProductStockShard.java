@@ -0,0 +1,29 @@
+package com.zia.product.service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// one bucket of a sharded product's stock, the product's quantity is the sum of its shards
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(
+        name = "product_stock_shards",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stock_shards_product_shard", columnNames = {"product_id", "shard_no"})
+)
+public class ProductStockShard {
+    @Id
+    @GeneratedValue(
+            strategy = GenerationType.IDENTITY
+    )
+    private Long shardId;
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    @Column(name = "shard_no", nullable = false)
+    private Integer shardNo;
+    @Column(nullable = false)
+    private Long quantity;
+}
@@ -0,0 +1,9 @@
+package com.zia.product.service.entity;
+
+public enum ReservationStatus {
+    // stock is held until confirmed, released or expired
+    PENDING,
+    CONFIRMED,
+    RELEASED,
+    EXPIRED
+}
@@ -0,0 +1,25 @@
+package com.zia.product.service.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// last ledger record already applied to products, written in the same transaction as the stock
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(
+        name = "stock_ledger_checkpoints"
+)
+public class StockLedgerCheckpoint {
+    @Id
+    @Column(length = 64)
+    private String ledgerId;
+    @Column(nullable = false)
+    private Long lastSeq;
+}
@@ -0,0 +1,41 @@
+package com.zia.product.service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// stock taken off a product for a limited time, given back unless it is confirmed
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(
+        name = "stock_reservations",
+        // the overdue sweep looks pending reservations up by deadline
+        indexes = @Index(name = "idx_stock_reservations_status_expires", columnList = "status, expires_at"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_stock_reservations_idempotency_key", columnNames = "idempotency_key")
+)
+public class StockReservation {
+    @Id
+    @GeneratedValue(
+            strategy = GenerationType.IDENTITY
+    )
+    private Long reservationId;
+    @Column(nullable = false)
+    private Long productId;
+    @Column(nullable = false)
+    private Long quantity;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ReservationStatus status;
+    @Column(nullable = false)
+    private Instant createdAt;
+    @Column(nullable = false)
+    private Instant expiresAt;
+    // null for callers that don't retry
+    @Column(length = 64)
+    private String idempotencyKey;
+}
@@ -0,0 +1,17 @@
+package com.zia.product.service.event;
+
+import com.zia.product.service.entity.Product;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+// published inside the transaction that created the products, listeners run after commit
+@Data
+@AllArgsConstructor
+public class ProductsSavedEvent {
+    private List<Product> products;
+    // product id -> description, only for products that have one
+    private Map<Long, String> descriptions;
+}
@@ -0,0 +1,13 @@
+package com.zia.product.service.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Collection;
+
+// quantity of these products changed; listeners run after commit, or right away outside a transaction
+@Data
+@AllArgsConstructor
+public class StockChangedEvent {
+    private Collection<Long> productIds;
+}
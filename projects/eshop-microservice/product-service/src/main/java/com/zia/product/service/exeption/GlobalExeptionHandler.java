@@ -14,9 +14,23 @@ public class GlobalExeptionHandler extends ResponseEntityExceptionHandler {
         ErrorDetail errorDetail = new ErrorDetail(ex.getMessage(), ex.getStatusCode());
         switch (ex.getStatusCode()){
             case "PRODUCT_NOT_FOUND":
+            case "RESERVATION_NOT_FOUND":
                 return new ResponseEntity<>(errorDetail, HttpStatus.NOT_FOUND);
             case "INSUFFICIENT_QUANTITY":
                 return new ResponseEntity<>(errorDetail, HttpStatus.NOT_FOUND);
+            case "CONCURRENT_UPDATE":
+            case "RESERVATION_NOT_PENDING":
+            case "SHARDING_UNAVAILABLE":
+            case "IDEMPOTENCY_KEY_REUSED":
+                return new ResponseEntity<>(errorDetail, HttpStatus.CONFLICT);
+            case "INVALID_QUANTITY":
+            case "TOO_MANY_IDS":
+            case "INVALID_SHARD_COUNT":
+            case "INVALID_TTL":
+            case "INVALID_EXPORT_FORMAT":
+                return new ResponseEntity<>(errorDetail, HttpStatus.BAD_REQUEST);
+            case "TOO_MANY_SUBSCRIBERS":
+                return new ResponseEntity<>(errorDetail, HttpStatus.SERVICE_UNAVAILABLE);
             default:
                 errorDetail.setStatusCode("PRODUCT_SERVICE_ERROR");
                 return new ResponseEntity<>(errorDetail, HttpStatus.INTERNAL_SERVER_ERROR);
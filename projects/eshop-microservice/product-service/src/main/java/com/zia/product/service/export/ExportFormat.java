@@ -0,0 +1,27 @@
+package com.zia.product.service.export;
+
+import com.zia.product.service.exeption.ProductServiceExeption;
+
+public enum ExportFormat {
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final String contentType;
+
+    ExportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public static ExportFormat from(String format) {
+        for (ExportFormat exportFormat : values()) {
+            if (exportFormat.name().equalsIgnoreCase(format)) {
+                return exportFormat;
+            }
+        }
+        throw new ProductServiceExeption("Unknown export format: " + format + ", use csv or ndjson", "INVALID_EXPORT_FORMAT");
+    }
+}
@@ -0,0 +1,210 @@
+package com.zia.product.service.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Writes the whole catalog to an output stream, one row at a time.
+ * The rows come from a forward-only, read-only cursor with a fixed fetch size (with useCursorFetch=true
+ * MySQL keeps the result on the server), and go out through one fixed-size buffer, so the heap used
+ * is the same for a hundred rows and for millions. Nothing is attached to a persistence context.
+ */
+@Component
+public class ProductExporter {
+
+    // quantity of a sharded product is the sum of its shards, same as ProductRepository.QUANTITY
+    private static final String EXPORT_SQL =
+            "select p.product_id, p.name, p.price, p.category_id, " +
+            "case when p.stock_shards > 0 then " +
+            "(select coalesce(sum(s.quantity), 0) from product_stock_shards s where s.product_id = p.product_id) " +
+            "else p.quantity end as quantity, " +
+            "d.description " +
+            "from products p left join product_descriptions d on d.product_id = p.product_id " +
+            "order by p.product_id";
+
+    private static final String CSV_HEADER = "productId,name,price,quantity,categoryId,description";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${product.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${product.export.buffer-size:64KB}")
+    private DataSize bufferSize;
+
+    // returns the number of rows written, the stream is flushed but left open
+    public long export(ExportFormat format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), (int) bufferSize.toBytes());
+        RowWriter rowWriter = format == ExportFormat.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+        long[] rows = {0};
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(EXPORT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, (RowCallbackHandler) resultSet -> {
+                try {
+                    rowWriter.write(resultSet);
+                } catch (IOException e) {
+                    // usually the client went away, stops the query and frees the cursor
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        rowWriter.finish();
+        return rows[0];
+    }
+
+    private static Long getLong(ResultSet resultSet, String column) throws SQLException {
+        long value = resultSet.getLong(column);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    private static Double getDouble(ResultSet resultSet, String column) throws SQLException {
+        double value = resultSet.getDouble(column);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    private interface RowWriter {
+        void write(ResultSet resultSet) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+        private boolean headerWritten;
+
+        private CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(ResultSet resultSet) throws SQLException, IOException {
+            if (!headerWritten) {
+                writer.write(CSV_HEADER);
+                writer.write("\r\n");
+                headerWritten = true;
+            }
+            writer.write(resultSet.getString("product_id"));
+            writer.write(',');
+            writeField(resultSet.getString("name"));
+            writer.write(',');
+            writeValue(getDouble(resultSet, "price"));
+            writer.write(',');
+            writeValue(getLong(resultSet, "quantity"));
+            writer.write(',');
+            writeValue(getLong(resultSet, "category_id"));
+            writer.write(',');
+            writeField(resultSet.getString("description"));
+            writer.write("\r\n");
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value != null) {
+                writer.write(value.toString());
+            }
+        }
+
+        // RFC 4180: quoted when it contains a separator, a quote or a line break, quotes doubled
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    writer.write('"');
+                }
+                writer.write(c);
+            }
+            writer.write('"');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (!headerWritten) {
+                writer.write(CSV_HEADER);
+                writer.write("\r\n");
+            }
+            writer.flush();
+        }
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        private NdjsonRowWriter(Writer writer) throws IOException {
+            // one object per line, without the default space between root values
+            this.generator = objectMapper.getFactory().createGenerator(writer)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(ResultSet resultSet) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("productId", resultSet.getLong("product_id"));
+            generator.writeStringField("name", resultSet.getString("name"));
+            Double price = getDouble(resultSet, "price");
+            if (price == null) {
+                generator.writeNullField("price");
+            } else {
+                generator.writeNumberField("price", price);
+            }
+            writeLongField("quantity", getLong(resultSet, "quantity"));
+            writeLongField("categoryId", getLong(resultSet, "category_id"));
+            generator.writeStringField("description", resultSet.getString("description"));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        private void writeLongField(String name, Long value) throws IOException {
+            if (value == null) {
+                generator.writeNullField(name);
+            } else {
+                generator.writeNumberField(name, value);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            // flushes the generator and the writer underneath
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.zia.product.service.hotspot;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min Sketch over long keys (Cormode and Muthukrishnan).
+ * depth rows of width counters, a key bumps one counter per row and its estimate is the smallest of them,
+ * so it never undercounts and overcounts by at most about total / width with high probability.
+ * Memory is fixed at width * depth longs whatever the number of keys. Thread safe, lock-free.
+ */
+public class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final AtomicLongArray counters;
+    private final long[] seeds;
+
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("width and depth must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counters = new AtomicLongArray(width * depth);
+        this.seeds = new long[depth];
+        for (int row = 0; row < depth; row++) {
+            seeds[row] = 0x9E3779B97F4A7C15L * (row + 1);
+        }
+    }
+
+    // adds count to key and returns its new estimate
+    public long add(long key, long count) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.addAndGet(index(row, key), count));
+        }
+        return estimate;
+    }
+
+    public long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, key)));
+        }
+        return estimate;
+    }
+
+    // halves every counter, so old traffic fades out; racing adds may be halved too, which is fine for estimates
+    public void decay() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, value -> value >>> 1);
+        }
+    }
+
+    private int index(int row, long key) {
+        // 64 bit finalizer from MurmurHash3, a different seed per row
+        long hash = (key ^ seeds[row]) * 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return row * width + (int) Long.remainderUnsigned(hash, width);
+    }
+}
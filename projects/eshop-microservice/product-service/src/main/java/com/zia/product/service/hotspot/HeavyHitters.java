@@ -0,0 +1,69 @@
+package com.zia.product.service.hotspot;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The k most frequent keys of a stream, counted with a CountMinSketch.
+ * A key is only let into the top-k map when its estimate beats the smallest one there, so for most keys
+ * an update is the sketch increment plus one volatile read. Keys already in the top-k are updated in place.
+ */
+public class HeavyHitters {
+
+    private final CountMinSketch sketch;
+    private final int k;
+    private final Map<Long, Long> topK = new ConcurrentHashMap<>();
+    // smallest estimate in topK once it is full
+    private volatile long floor;
+
+    public HeavyHitters(int k, int width, int depth) {
+        this.k = k;
+        this.sketch = new CountMinSketch(width, depth);
+    }
+
+    public void add(long key) {
+        long estimate = sketch.add(key, 1);
+        if (topK.computeIfPresent(key, (ignored, previous) -> Math.max(previous, estimate)) != null) {
+            return;
+        }
+        if (estimate > floor || topK.size() < k) {
+            admit(key, estimate);
+        }
+    }
+
+    private synchronized void admit(long key, long estimate) {
+        topK.merge(key, estimate, Math::max);
+        if (topK.size() > k) {
+            topK.entrySet().stream()
+                    .min(Map.Entry.comparingByValue())
+                    .ifPresent(min -> topK.remove(min.getKey()));
+        }
+        updateFloor();
+    }
+
+    private void updateFloor() {
+        floor = topK.size() < k ? 0 : topK.values().stream().mapToLong(Long::longValue).min().orElse(0);
+    }
+
+    // highest estimate first
+    public List<Map.Entry<Long, Long>> top() {
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(topK.entrySet());
+        entries.sort(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder()));
+        return entries.stream().map(entry -> Map.entry(entry.getKey(), entry.getValue())).toList();
+    }
+
+    public long estimate(long key) {
+        return sketch.estimate(key);
+    }
+
+    // halves the sketch and the top-k together, keys that went quiet drop out over time
+    public synchronized void decay() {
+        sketch.decay();
+        topK.replaceAll((key, count) -> count >>> 1);
+        topK.values().removeIf(count -> count == 0);
+        updateFloor();
+    }
+}
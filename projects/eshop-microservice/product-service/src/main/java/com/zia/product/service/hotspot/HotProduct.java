@@ -0,0 +1,14 @@
+package com.zia.product.service.hotspot;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HotProduct {
+    private Long productId;
+    // decayed count, an upper bound of the real one
+    private Long estimatedCount;
+}
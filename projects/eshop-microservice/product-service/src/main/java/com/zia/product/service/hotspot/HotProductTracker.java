@@ -0,0 +1,86 @@
+package com.zia.product.service.hotspot;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Most requested products per operation, in constant memory.
+ * Counts are halved every decay-interval, so the ranking follows the recent traffic.
+ * Published as gauges product.hot.count and product.hot.product_id, tagged with operation and rank,
+ * and through the hotproducts actuator endpoint.
+ */
+@Component
+public class HotProductTracker {
+
+    public enum Operation {
+        READ,
+        REDUCE
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${product.hot.top-k:20}")
+    private int topK;
+
+    @Value("${product.hot.sketch-width:2048}")
+    private int sketchWidth;
+
+    @Value("${product.hot.sketch-depth:4}")
+    private int sketchDepth;
+
+    private final Map<Operation, HeavyHitters> heavyHitters = new EnumMap<>(Operation.class);
+
+    @PostConstruct
+    void registerGauges() {
+        for (Operation operation : Operation.values()) {
+            heavyHitters.put(operation, new HeavyHitters(topK, sketchWidth, sketchDepth));
+            for (int rank = 1; rank <= topK; rank++) {
+                int index = rank - 1;
+                String[] tags = {"operation", operation.name().toLowerCase(), "rank", String.valueOf(rank)};
+                Gauge.builder("product.hot.count", this, tracker -> tracker.rankValue(operation, index, false))
+                        .tags(tags)
+                        .description("Estimated recent requests for the product at this rank")
+                        .register(meterRegistry);
+                Gauge.builder("product.hot.product_id", this, tracker -> tracker.rankValue(operation, index, true))
+                        .tags(tags)
+                        .description("Product at this rank, NaN while the rank is empty")
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    public void record(Operation operation, Long productId) {
+        if (productId != null) {
+            heavyHitters.get(operation).add(productId);
+        }
+    }
+
+    public List<HotProduct> top(Operation operation) {
+        return heavyHitters.get(operation).top().stream()
+                .map(entry -> new HotProduct(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${product.hot.decay-interval:60s}", initialDelayString = "${product.hot.decay-interval:60s}")
+    public void decay() {
+        heavyHitters.values().forEach(HeavyHitters::decay);
+    }
+
+    private double rankValue(Operation operation, int index, boolean productId) {
+        List<Map.Entry<Long, Long>> top = heavyHitters.get(operation).top();
+        if (index >= top.size()) {
+            return Double.NaN;
+        }
+        return productId ? top.get(index).getKey() : top.get(index).getValue();
+    }
+}
@@ -0,0 +1,40 @@
+package com.zia.product.service.hotspot;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// http://localhost:9002/actuator/hotproducts and /actuator/hotproducts/reduce
+@Component
+@Endpoint(id = "hotproducts")
+public class HotProductsEndpoint {
+
+    @Autowired
+    private HotProductTracker hotProductTracker;
+
+    @ReadOperation
+    public Map<HotProductTracker.Operation, List<HotProduct>> hotProducts() {
+        Map<HotProductTracker.Operation, List<HotProduct>> hotProducts = new EnumMap<>(HotProductTracker.Operation.class);
+        for (HotProductTracker.Operation operation : HotProductTracker.Operation.values()) {
+            hotProducts.put(operation, hotProductTracker.top(operation));
+        }
+        return hotProducts;
+    }
+
+    // unknown operations answer 404
+    @ReadOperation
+    public List<HotProduct> hotProducts(@Selector String operation) {
+        for (HotProductTracker.Operation candidate : HotProductTracker.Operation.values()) {
+            if (candidate.name().equalsIgnoreCase(operation)) {
+                return hotProductTracker.top(candidate);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,48 @@
+package com.zia.product.service.mapper;
+
+import com.zia.product.service.dto.ProductRequest;
+import com.zia.product.service.dto.ProductResponse;
+import com.zia.product.service.entity.Product;
+import com.zia.product.service.entity.ProductDescription;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// plain field copies, replaces the reflective BeanUtils.copyProperties calls
+public final class ProductMapper {
+
+    private ProductMapper() {
+    }
+
+    public static Product toEntity(ProductRequest productRequest) {
+        Product product = new Product();
+        product.setName(productRequest.getName());
+        product.setPrice(productRequest.getPrice());
+        product.setQuantity(productRequest.getQuantity());
+        product.setCategoryId(productRequest.getCategoryId());
+        return product;
+    }
+
+    // null when the request has no description, nothing is stored then
+    public static ProductDescription toDescription(Product product, ProductRequest productRequest) {
+        String description = productRequest.getDescription();
+        return (description == null || description.isBlank()) ? null : new ProductDescription(product, description);
+    }
+
+    public static ProductResponse toResponse(Product product) {
+        return new ProductResponse(
+                product.getProductId(),
+                product.getName(),
+                product.getPrice(),
+                product.getQuantity(),
+                product.getVersion());
+    }
+
+    public static List<ProductResponse> toResponses(List<Product> products) {
+        List<ProductResponse> productResponses = new ArrayList<>(products.size());
+        for (Product product : products) {
+            productResponses.add(toResponse(product));
+        }
+        return productResponses;
+    }
+}
@@ -1,7 +1,78 @@
 package com.zia.product.service.repository;
 
+import com.zia.product.service.dto.ProductResponse;
 import com.zia.product.service.entity.Product;
+import com.zia.product.service.search.ProductSearchDocument;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+
+    // stock of a product, summed over its shards when the product is sharded
+    String QUANTITY = "case when p.stockShards > 0 then " +
+            "(select coalesce(sum(s.quantity), 0L) from ProductStockShard s where s.productId = p.productId) " +
+            "else p.quantity end";
+
+    // read paths select straight into the DTO: no managed entities, no snapshots, nothing to dirty check
+    String SELECT_PRODUCT_RESPONSE = "select new com.zia.product.service.dto.ProductResponse(" +
+            "p.productId, p.name, p.price, " + QUANTITY + ", p.version) from Product p ";
+
+    @Query(SELECT_PRODUCT_RESPONSE + "where p.productId = :productId")
+    Optional<ProductResponse> findResponseById(@Param("productId") Long productId);
+
+    @Query(SELECT_PRODUCT_RESPONSE + "where p.productId in :productIds")
+    List<ProductResponse> findResponsesByIds(@Param("productIds") Collection<Long> productIds);
+
+    @Query(SELECT_PRODUCT_RESPONSE + "order by p.productId")
+    List<ProductResponse> findAllResponses();
+
+    // keyset page on the primary key
+    @Query(SELECT_PRODUCT_RESPONSE + "where p.productId > :productId order by p.productId")
+    List<ProductResponse> findResponsesAfter(@Param("productId") Long productId, Limit limit);
+
+    @Query("select p.stockShards from Product p where p.productId = :productId")
+    Optional<Integer> findStockShardsById(@Param("productId") Long productId);
+
+    @Query("select p.productId from Product p where p.stockShards > 0")
+    List<Long> findShardedProductIds();
+
+    // forward-only cursor over the whole catalog for the search index, must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.zia.product.service.search.ProductSearchDocument(p.productId, p.name, d.description) " +
+            "from Product p left join ProductDescription d on d.productId = p.productId order by p.productId")
+    Stream<ProductSearchDocument> streamSearchDocuments();
+
+    // SELECT ... FOR UPDATE, gives up after 3s instead of waiting on the row lock forever
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "3000"))
+    @Query("select p from Product p where p.productId = :productId")
+    Optional<Product> findByIdForUpdate(@Param("productId") Long productId);
+
+    // conditional decrement in a single statement, returns 1 if the stock was taken and 0 otherwise.
+    // The version is bumped too so optimistic writers notice the change
+    @Modifying(clearAutomatically = true)
+    @Query("update Product p set p.quantity = p.quantity - :quantity, p.version = p.version + 1 " +
+            "where p.productId = :productId and p.quantity >= :quantity")
+    int reduceQuantityIfAvailable(@Param("productId") Long productId, @Param("quantity") Long quantity);
+
+    // leaves sharded products alone, their stock lives in the shards
+    @Modifying(clearAutomatically = true)
+    @Query("update Product p set p.quantity = p.quantity + :quantity, p.version = p.version + 1 " +
+            "where p.productId = :productId and p.stockShards = 0")
+    int increaseQuantity(@Param("productId") Long productId, @Param("quantity") Long quantity);
 }
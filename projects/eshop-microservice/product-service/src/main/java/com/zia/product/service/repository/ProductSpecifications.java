@@ -0,0 +1,49 @@
+package com.zia.product.service.repository;
+
+import com.zia.product.service.entity.Product;
+import com.zia.product.service.entity.ProductStockShard;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// builds the WHERE clause of the filtered listing from the filters that were actually given,
+// so every combination stays a plain sargable predicate on the composite indexes
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> filter(Long categoryId, Double minPrice, Double maxPrice,
+                                                Boolean inStock, Long afterId) {
+        List<Specification<Product>> specifications = new ArrayList<>();
+        if (categoryId != null) {
+            specifications.add((root, query, cb) -> cb.equal(root.get("categoryId"), categoryId));
+        }
+        if (minPrice != null) {
+            specifications.add((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice));
+        }
+        if (maxPrice != null) {
+            specifications.add((root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice));
+        }
+        if (Boolean.TRUE.equals(inStock)) {
+            specifications.add((root, query, cb) -> {
+                // sharded products keep their stock in product_stock_shards
+                Subquery<Integer> shardInStock = query.subquery(Integer.class);
+                Root<ProductStockShard> shard = shardInStock.from(ProductStockShard.class);
+                shardInStock.select(cb.literal(1)).where(
+                        cb.equal(shard.get("productId"), root.get("productId")),
+                        cb.greaterThan(shard.get("quantity"), 0L));
+                return cb.or(
+                        cb.and(cb.equal(root.get("stockShards"), 0), cb.greaterThan(root.get("quantity"), 0L)),
+                        cb.and(cb.greaterThan(root.get("stockShards"), 0), cb.exists(shardInStock)));
+            });
+        }
+        if (afterId != null) {
+            specifications.add((root, query, cb) -> cb.greaterThan(root.get("productId"), afterId));
+        }
+        return Specification.allOf(specifications);
+    }
+}
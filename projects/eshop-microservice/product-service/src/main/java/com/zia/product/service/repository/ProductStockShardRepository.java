@@ -0,0 +1,39 @@
+package com.zia.product.service.repository;
+
+import com.zia.product.service.entity.ProductStockShard;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ProductStockShardRepository extends JpaRepository<ProductStockShard, Long> {
+
+    // same conditional decrement as on products, but only one bucket gets locked
+    @Modifying(clearAutomatically = true)
+    @Query("update ProductStockShard s set s.quantity = s.quantity - :quantity " +
+            "where s.productId = :productId and s.shardNo = :shardNo and s.quantity >= :quantity")
+    int reduceQuantityIfAvailable(@Param("productId") Long productId, @Param("shardNo") Integer shardNo,
+                                  @Param("quantity") Long quantity);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update ProductStockShard s set s.quantity = s.quantity + :quantity " +
+            "where s.productId = :productId and s.shardNo = :shardNo")
+    int increaseQuantity(@Param("productId") Long productId, @Param("shardNo") Integer shardNo,
+                         @Param("quantity") Long quantity);
+
+    // all buckets locked in shard order, used when no single bucket can serve the request
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "3000"))
+    @Query("select s from ProductStockShard s where s.productId = :productId order by s.shardNo")
+    List<ProductStockShard> findByProductIdForUpdate(@Param("productId") Long productId);
+
+    @Modifying
+    @Query("delete from ProductStockShard s where s.productId = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+}
@@ -0,0 +1,14 @@
+package com.zia.product.service.repository;
+
+import com.zia.product.service.entity.StockLedgerCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface StockLedgerCheckpointRepository extends JpaRepository<StockLedgerCheckpoint, String> {
+
+    @Modifying
+    @Query("update StockLedgerCheckpoint c set c.lastSeq = :lastSeq where c.ledgerId = :ledgerId")
+    int updateLastSeq(@Param("ledgerId") String ledgerId, @Param("lastSeq") Long lastSeq);
+}
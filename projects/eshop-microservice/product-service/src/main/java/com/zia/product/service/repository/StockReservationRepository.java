@@ -0,0 +1,43 @@
+package com.zia.product.service.repository;
+
+import com.zia.product.service.entity.ReservationStatus;
+import com.zia.product.service.entity.StockReservation;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    List<StockReservation> findByStatus(ReservationStatus status);
+
+    Optional<StockReservation> findByIdempotencyKey(String idempotencyKey);
+
+    @Query("select r.reservationId from StockReservation r " +
+            "where r.status = com.zia.product.service.entity.ReservationStatus.PENDING and r.expiresAt < :before " +
+            "order by r.expiresAt")
+    List<Long> findOverduePendingIds(@Param("before") Instant before, Limit limit);
+
+    // products with the most units reserved since the given time, used to warm the cache on startup
+    @Query("select r.productId from StockReservation r where r.createdAt >= :since " +
+            "group by r.productId order by sum(r.quantity) desc")
+    List<Long> findMostReservedProductIds(@Param("since") Instant since, Limit limit);
+
+    // only one of confirm, release and expire can win for a reservation
+    @Modifying(clearAutomatically = true)
+    @Query("update StockReservation r set r.status = :status " +
+            "where r.reservationId = :reservationId and r.status = com.zia.product.service.entity.ReservationStatus.PENDING")
+    int updateStatusIfPending(@Param("reservationId") Long reservationId, @Param("status") ReservationStatus status);
+
+    // a reservation past its deadline can't be confirmed, even before the expiry tick reaches it
+    @Modifying(clearAutomatically = true)
+    @Query("update StockReservation r set r.status = com.zia.product.service.entity.ReservationStatus.CONFIRMED " +
+            "where r.reservationId = :reservationId and r.status = com.zia.product.service.entity.ReservationStatus.PENDING " +
+            "and r.expiresAt > :now")
+    int confirmIfPending(@Param("reservationId") Long reservationId, @Param("now") Instant now);
+}
@@ -0,0 +1,105 @@
+package com.zia.product.service.reservation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel (Varghese and Lauck) for deadlines measured in milliseconds.
+ * Adding a timer and letting one expire are O(1); a timer further away than one revolution
+ * goes into a coarser overflow wheel and drops back down as its time comes closer.
+ * Timers never fire early and at most one tick late. Not thread safe, it is driven by a single thread.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long intervalMillis;
+    private final List<Timer<T>>[] buckets;
+    // start of the current tick, always a multiple of tickMillis
+    private long currentTime;
+    private HierarchicalTimingWheel<T> overflowWheel;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMillis must be positive and wheelSize at least 2");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.intervalMillis = tickMillis * wheelSize;
+        this.buckets = new List[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+        this.currentTime = startMillis - (startMillis % tickMillis);
+    }
+
+    /**
+     * Schedules item to fire at deadlineMillis.
+     * Returns false without scheduling when the deadline has already been reached, the caller fires it right away.
+     */
+    public boolean add(T item, long deadlineMillis) {
+        // buckets fire at the start of their tick, rounding up keeps a timer from firing before its deadline
+        if (!add(new Timer<>(item, deadlineMillis + tickMillis - 1))) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    private boolean add(Timer<T> timer) {
+        if (timer.deadlineMillis < currentTime + tickMillis) {
+            return false;
+        }
+        if (timer.deadlineMillis < currentTime + intervalMillis) {
+            buckets[(int) ((timer.deadlineMillis / tickMillis) % wheelSize)].add(timer);
+            return true;
+        }
+        if (overflowWheel == null) {
+            overflowWheel = new HierarchicalTimingWheel<>(intervalMillis, wheelSize, currentTime);
+        }
+        return overflowWheel.add(timer);
+    }
+
+    /**
+     * Moves the wheel forward to nowMillis and hands every item whose deadline has passed to expired.
+     */
+    public void advance(long nowMillis, Consumer<T> expired) {
+        tick(nowMillis, timer -> {
+            // timers coming down from an overflow wheel go into a finer bucket, or fire if they are due
+            if (!add(timer)) {
+                size--;
+                expired.accept(timer.item);
+            }
+        });
+    }
+
+    private void tick(long nowMillis, TimerSink<T> sink) {
+        while (currentTime + tickMillis <= nowMillis) {
+            currentTime += tickMillis;
+            if (overflowWheel != null) {
+                overflowWheel.tick(currentTime, sink);
+            }
+            List<Timer<T>> bucket = buckets[(int) ((currentTime / tickMillis) % wheelSize)];
+            if (!bucket.isEmpty()) {
+                List<Timer<T>> timers = new ArrayList<>(bucket);
+                bucket.clear();
+                timers.forEach(sink::accept);
+            }
+        }
+    }
+
+    // number of scheduled items
+    public int size() {
+        return size;
+    }
+
+    private interface TimerSink<T> {
+        void accept(Timer<T> timer);
+    }
+
+    private record Timer<T>(T item, long deadlineMillis) {
+    }
+}
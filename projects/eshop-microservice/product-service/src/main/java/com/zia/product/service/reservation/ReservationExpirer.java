@@ -0,0 +1,168 @@
+package com.zia.product.service.reservation;
+
+import com.zia.product.service.entity.ReservationStatus;
+import com.zia.product.service.entity.StockReservation;
+import com.zia.product.service.repository.StockReservationRepository;
+import com.zia.product.service.service.ProductService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gives the stock of unconfirmed reservations back when they run out.
+ * Deadlines sit in a HierarchicalTimingWheel driven by one thread, so expiry costs no database scans,
+ * only one conditional update per reservation that actually expires.
+ * Confirmed and released reservations are cancelled here and never touch the database again.
+ * Timers only live on the instance that took the reservation, so a periodic sweep also expires pending
+ * rows that are overdue by more than a sweep interval, left behind by an instance that died or is gone.
+ */
+@Component
+public class ReservationExpirer {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationExpirer.class);
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${product.reservation.tick:100ms}")
+    private Duration tick;
+
+    @Value("${product.reservation.wheel-size:512}")
+    private int wheelSize;
+
+    @Value("${product.reservation.sweep-interval:30s}")
+    private Duration sweepInterval;
+
+    @Value("${product.reservation.sweep-batch-size:500}")
+    private int sweepBatchSize;
+
+    // reservation id -> deadline, a reservation removed from here is not expired any more
+    private final Map<Long, Long> scheduled = new ConcurrentHashMap<>();
+
+    // request threads only queue new timers, the wheel itself belongs to the expiry thread
+    private final Queue<Long> added = new ConcurrentLinkedQueue<>();
+
+    private HierarchicalTimingWheel<Long> wheel;
+
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        wheel = new HierarchicalTimingWheel<>(tick.toMillis(), wheelSize, System.currentTimeMillis());
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::advance, tick.toMillis(), tick.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    // reservations still pending from before a restart, already overdue ones expire on the first tick
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPendingReservations() {
+        List<StockReservation> reservations = reservationRepository.findByStatus(ReservationStatus.PENDING);
+        reservations.forEach(reservation -> schedule(reservation.getReservationId(), reservation.getExpiresAt()));
+        log.info("Scheduled expiry of {} pending stock reservations", reservations.size());
+    }
+
+    @Scheduled(initialDelayString = "${product.reservation.sweep-interval:30s}", fixedDelayString = "${product.reservation.sweep-interval:30s}")
+    public void sweepOverdueReservations() {
+        // every instance sweeps, the conditional update in expire lets only one of them give the stock back
+        List<Long> overdueIds = reservationRepository.findOverduePendingIds(
+                Instant.now().minus(sweepInterval), Limit.of(sweepBatchSize));
+        int swept = 0;
+        for (Long reservationId : overdueIds) {
+            if (!scheduled.containsKey(reservationId)) {
+                schedule(reservationId, Instant.EPOCH);
+                swept++;
+            }
+        }
+        if (swept > 0) {
+            log.info("Sweep found {} overdue stock reservations", swept);
+        }
+    }
+
+    public void schedule(Long reservationId, Instant expiresAt) {
+        scheduled.put(reservationId, expiresAt.toEpochMilli());
+        added.add(reservationId);
+    }
+
+    public void cancel(Long reservationId) {
+        scheduled.remove(reservationId);
+    }
+
+    // number of reservations waiting for their deadline
+    public int pending() {
+        return scheduled.size();
+    }
+
+    private void advance() {
+        try {
+            List<Long> expired = new ArrayList<>();
+            Long reservationId;
+            while ((reservationId = added.poll()) != null) {
+                Long deadline = scheduled.get(reservationId);
+                if (deadline != null && !wheel.add(reservationId, deadline)) {
+                    expired.add(reservationId);
+                }
+            }
+            wheel.advance(System.currentTimeMillis(), expired::add);
+            for (Long expiredId : expired) {
+                // cancelled timers are simply skipped
+                if (scheduled.remove(expiredId) != null) {
+                    expire(expiredId);
+                }
+            }
+        } catch (RuntimeException ex) {
+            // never let an exception cancel the periodic task
+            log.error("Reservation expiry tick failed", ex);
+        }
+    }
+
+    private void expire(Long reservationId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // loses quietly against a concurrent confirm or release, or against another instance
+                if (reservationRepository.updateStatusIfPending(reservationId, ReservationStatus.EXPIRED) == 1) {
+                    StockReservation reservation = reservationRepository.findById(reservationId).orElseThrow();
+                    productService.increaseQuantity(reservation.getProductId(), reservation.getQuantity());
+                }
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Could not expire reservation {}, retrying shortly", reservationId, ex);
+            schedule(reservationId, Instant.now().plus(tick.multipliedBy(10)));
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.zia.product.service.search;
+
+// the columns the search index needs, read with one outer join instead of loading entities
+public record ProductSearchDocument(Long productId, String name, String description) {
+}
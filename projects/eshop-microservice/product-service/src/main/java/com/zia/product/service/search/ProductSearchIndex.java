@@ -0,0 +1,168 @@
+package com.zia.product.service.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product name and description.
+ * Queries are tokenized the same way as the documents and ranked with BM25,
+ * words in the name count NAME_BOOST times as much as words in the description.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final int NAME_BOOST = 3;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // term -> (productId -> weighted term frequency)
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    // productId -> terms of the document, needed to remove the old postings on re-index
+    private final Map<Long, Map<String, Integer>> documents = new HashMap<>();
+    private long totalLength;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void index(Long productId, String name, String description) {
+        Map<String, Integer> terms = new HashMap<>();
+        for (String token : tokenize(name)) {
+            terms.merge(token, NAME_BOOST, Integer::sum);
+        }
+        for (String token : tokenize(description)) {
+            terms.merge(token, 1, Integer::sum);
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+            if (terms.isEmpty()) {
+                return;
+            }
+            terms.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).put(productId, frequency));
+            documents.put(productId, terms);
+            totalLength += length(terms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // product ids ordered by relevance, best match first
+    public List<Long> search(String query, int limit) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            if (documentCount == 0) {
+                return Collections.emptyList();
+            }
+            double averageLength = (double) totalLength / documentCount;
+            for (String term : queryTerms) {
+                Map<Long, Integer> posting = postings.get(term);
+                if (posting == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documentCount - posting.size() + 0.5) / (posting.size() + 0.5));
+                posting.forEach((productId, frequency) -> {
+                    double norm = K1 * (1 - B + B * length(documents.get(productId)) / averageLength);
+                    scores.merge(productId, idf * frequency * (K1 + 1) / (frequency + norm), Double::sum);
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return topK(scores, limit);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // lowercase letters and digits, everything else separates tokens
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(Character.toLowerCase(c));
+            } else if (!current.isEmpty()) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (!current.isEmpty()) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    // caller holds the write lock
+    private void removeDocument(Long productId) {
+        Map<String, Integer> terms = documents.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        totalLength -= length(terms);
+        for (String term : terms.keySet()) {
+            Map<Long, Integer> posting = postings.get(term);
+            posting.remove(productId);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static int length(Map<String, Integer> terms) {
+        int length = 0;
+        for (int frequency : terms.values()) {
+            length += frequency;
+        }
+        return length;
+    }
+
+    // keeps only the best "limit" entries in a min-heap instead of sorting every match
+    private static List<Long> topK(Map<Long, Double> scores, int limit) {
+        PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<Long> productIds = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            productIds.add(heap.poll().getKey());
+        }
+        Collections.reverse(productIds);
+        return productIds;
+    }
+}
@@ -0,0 +1,54 @@
+package com.zia.product.service.search;
+
+import com.zia.product.service.entity.Product;
+import com.zia.product.service.event.ProductsSavedEvent;
+import com.zia.product.service.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.stream.Stream;
+
+// keeps ProductSearchIndex in step with the products table
+@Component
+public class ProductSearchIndexer {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndexer.class);
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // one pass over the catalog at startup, later changes come in through events; before StartupWarmup
+    @Order(0)
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        long start = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<ProductSearchDocument> documents = productRepository.streamSearchDocuments()) {
+                documents.forEach(document ->
+                        productSearchIndex.index(document.productId(), document.name(), document.description()));
+            }
+        });
+        log.info("Indexed {} products for search in {} ms", productSearchIndex.size(), System.currentTimeMillis() - start);
+    }
+
+    // only committed products become searchable
+    @TransactionalEventListener
+    public void onProductsSaved(ProductsSavedEvent event) {
+        for (Product product : event.getProducts()) {
+            productSearchIndex.index(product.getProductId(), product.getName(), event.getDescriptions().get(product.getProductId()));
+        }
+    }
+}
@@ -1,17 +1,32 @@
 package com.zia.product.service.service;
 
+import com.zia.product.service.dto.ProductBatchResponse;
+import com.zia.product.service.dto.ProductImportResult;
+import com.zia.product.service.dto.ProductPage;
+import com.zia.product.service.dto.ProductQuantityRequest;
 import com.zia.product.service.dto.ProductRequest;
 import com.zia.product.service.dto.ProductResponse;
+import java.util.Iterator;
 import java.util.List;
 
 public interface ProductService {
 
     ProductResponse addProduct(ProductRequest productRequest);
+    ProductImportResult importProducts(Iterator<ProductRequest> productRequests);
     List<ProductResponse> getAllProducts();
+    ProductPage getProducts(Long afterId, Integer size);
+    ProductPage filterProducts(Long categoryId, Double minPrice, Double maxPrice, Boolean inStock,
+                               Long afterId, Integer size);
     ProductResponse getProductById(Long productId);
+    ProductBatchResponse getProductsByIds(List<Long> productIds);
+    List<ProductResponse> searchProducts(String query, Integer limit);
 
 
     // most important
     void reduceQuantity(Long productId, Long quantity);
+    void reduceQuantities(List<ProductQuantityRequest> items);
+    void increaseQuantity(Long productId, Long quantity);
+    void enableStockSharding(Long productId, Integer shardCount);
+    void disableStockSharding(Long productId);
 
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.zia.product.service.service;
+
+import com.zia.product.service.dto.ReservationRequest;
+import com.zia.product.service.dto.ReservationResponse;
+
+public interface ReservationService {
+    ReservationResponse reserve(ReservationRequest reservationRequest);
+    ReservationResponse confirm(Long reservationId);
+    ReservationResponse release(Long reservationId);
+    ReservationResponse getReservation(Long reservationId);
+}
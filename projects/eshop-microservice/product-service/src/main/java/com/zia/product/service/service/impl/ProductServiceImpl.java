@@ -1,62 +1,451 @@
 package com.zia.product.service.service.impl;
 
+import com.zia.product.service.config.CacheConfig;
+import com.zia.product.service.dto.ProductBatchResponse;
+import com.zia.product.service.dto.ProductImportResult;
+import com.zia.product.service.dto.ProductPage;
+import com.zia.product.service.dto.ProductQuantityRequest;
 import com.zia.product.service.dto.ProductRequest;
 import com.zia.product.service.dto.ProductResponse;
 import com.zia.product.service.entity.Product;
+import com.zia.product.service.entity.ProductDescription;
+import com.zia.product.service.event.ProductsSavedEvent;
+import com.zia.product.service.event.StockChangedEvent;
 import com.zia.product.service.exeption.ProductServiceExeption;
+import com.zia.product.service.hotspot.HotProductTracker;
+import com.zia.product.service.mapper.ProductMapper;
 import com.zia.product.service.repository.ProductRepository;
+import com.zia.product.service.repository.ProductSpecifications;
+import com.zia.product.service.search.ProductSearchIndex;
 import com.zia.product.service.service.ProductService;
+import com.zia.product.service.service.stock.LedgerStockUpdater;
+import com.zia.product.service.service.stock.ShardedInventory;
+import com.zia.product.service.service.stock.StockUpdateStrategy;
+import com.zia.product.service.service.stock.StockUpdater;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-//
-import static org.springframework.beans.BeanUtils.copyProperties;
-//
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class ProductServiceImpl implements ProductService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    private static final int MAX_SEARCH_LIMIT = 100;
+
+    private static final String REDUCE_QUANTITY_SQL =
+            "update products set quantity = quantity - ?, version = version + 1 where product_id = ? and quantity >= ?";
+
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private List<StockUpdater> stockUpdaters;
+
+    @Autowired
+    private ShardedInventory shardedInventory;
+
+    @Autowired
+    private HotProductTracker hotProductTracker;
+
+    @Value("${product.stock.strategy:ATOMIC}")
+    private StockUpdateStrategy stockUpdateStrategy;
+
+    private StockUpdater stockUpdater;
+
+    // only with the LEDGER strategy; every stock change then has to go through it, see LedgerStockUpdater
+    @Autowired(required = false)
+    private LedgerStockUpdater ledgerStockUpdater;
+
+    // keep in line with spring.jpa.properties.hibernate.jdbc.batch_size
+    @Value("${product.import.batch-size:500}")
+    private int importBatchSize;
+
+    @PostConstruct
+    void selectStockUpdater() {
+        stockUpdater = stockUpdaters.stream()
+                .filter(updater -> updater.strategy() == stockUpdateStrategy)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No stock updater for strategy " + stockUpdateStrategy));
+    }
+
     @Override
+    @Transactional
+    @CachePut(value = CacheConfig.PRODUCT_CACHE, key = "#result.productId")
     public ProductResponse addProduct(ProductRequest productRequest) {
-        Product product = new Product();
-        copyProperties(productRequest, product);
-        Product savedProduct = productRepository.save(product);
-        ProductResponse productResponse = new ProductResponse();
-        copyProperties(savedProduct, productResponse);
-        return productResponse;
+        Product savedProduct = productRepository.save(ProductMapper.toEntity(productRequest));
+        Map<Long, String> descriptions = new HashMap<>();
+        saveDescription(savedProduct, productRequest, descriptions);
+        eventPublisher.publishEvent(new ProductsSavedEvent(List.of(savedProduct), descriptions));
+        return ProductMapper.toResponse(savedProduct);
+    }
+
+    // persist instead of save: the id is already set from the product, save would SELECT before inserting
+    private void saveDescription(Product product, ProductRequest productRequest, Map<Long, String> descriptions) {
+        ProductDescription productDescription = ProductMapper.toDescription(product, productRequest);
+        if (productDescription != null) {
+            entityManager.persist(productDescription);
+            descriptions.put(product.getProductId(), productDescription.getDescription());
+        }
     }
 
     @Override
+    @Transactional
+    public ProductImportResult importProducts(Iterator<ProductRequest> productRequests) {
+        long start = System.nanoTime();
+        long importedCount = 0;
+        List<Product> batch = new ArrayList<>(importBatchSize);
+        Map<Long, String> descriptions = new HashMap<>();
+        while (productRequests.hasNext()) {
+            ProductRequest productRequest = productRequests.next();
+            Product product = ProductMapper.toEntity(productRequest);
+            // persisting takes the id from the pooled sequence, the description needs it
+            entityManager.persist(product);
+            saveDescription(product, productRequest, descriptions);
+            batch.add(product);
+            if (batch.size() == importBatchSize) {
+                importedCount += flushBatch(batch, descriptions);
+            }
+        }
+        importedCount += flushBatch(batch, descriptions);
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return new ProductImportResult(importedCount, elapsedMillis, importedCount * 1000.0 / elapsedMillis);
+    }
+
+    // sends the JDBC batches and empties the persistence context so a big file doesn't stay on the heap
+    private int flushBatch(List<Product> batch, Map<Long, String> descriptions) {
+        int size = batch.size();
+        if (size == 0) {
+            return 0;
+        }
+        entityManager.flush();
+        entityManager.clear();
+        eventPublisher.publishEvent(new ProductsSavedEvent(new ArrayList<>(batch), new HashMap<>(descriptions)));
+        batch.clear();
+        descriptions.clear();
+        return size;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<ProductResponse> getAllProducts() {
-        List<ProductResponse> productResponses = productRepository.findAll().stream().map(product -> {
-            ProductResponse productResponse = new ProductResponse();
-            copyProperties(product, productResponse);
-            return productResponse;
-        }).toList();
-        return productResponses;
+        return productRepository.findAllResponses();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public ProductPage getProducts(Long afterId, Integer size) {
+        int pageSize = pageSize(size);
+        long cursor = afterId == null ? 0L : afterId;
+        return toPage(productRepository.findResponsesAfter(cursor, Limit.of(pageSize)), pageSize);
+    }
+
+    private static int pageSize(Integer size) {
+        return (size == null || size <= 0) ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    private static ProductPage toPage(List<ProductResponse> productResponses, int pageSize) {
+        // a short page means we reached the end of the results
+        Long nextCursor = productResponses.size() < pageSize ? null : productResponses.get(productResponses.size() - 1).getProductId();
+        return new ProductPage(productResponses, nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductPage filterProducts(Long categoryId, Double minPrice, Double maxPrice, Boolean inStock,
+                                      Long afterId, Integer size) {
+        int pageSize = pageSize(size);
+        List<Product> products = productRepository.findBy(
+                ProductSpecifications.filter(categoryId, minPrice, maxPrice, inStock, afterId),
+                query -> query.sortBy(Sort.by("productId")).limit(pageSize).all());
+        // entities here, but the read-only transaction skips snapshots and the flush
+        List<ProductResponse> productResponses = ProductMapper.toResponses(products);
+        fixShardedQuantities(products, productResponses);
+        return toPage(productResponses, pageSize);
+    }
+
+    // products.quantity is 0 for sharded products, their stock is summed from the shards in one query
+    private void fixShardedQuantities(List<Product> products, List<ProductResponse> productResponses) {
+        List<Long> shardedIds = products.stream()
+                .filter(product -> product.getStockShards() > 0)
+                .map(Product::getProductId)
+                .toList();
+        if (shardedIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> quantities = new HashMap<>();
+        productRepository.findResponsesByIds(shardedIds)
+                .forEach(productResponse -> quantities.put(productResponse.getProductId(), productResponse.getQuantity()));
+        productResponses.forEach(productResponse -> productResponse.setQuantity(
+                quantities.getOrDefault(productResponse.getProductId(), productResponse.getQuantity())));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(CacheConfig.PRODUCT_CACHE)
     public ProductResponse getProductById(Long productId) {
-        ProductResponse productResponse = new ProductResponse();
-        Product product = productRepository.findById(productId).orElseThrow(() -> new ProductServiceExeption("Product not found","PRODUCT_NOT_FOUND"));
-        copyProperties(product, productResponse);
-        return productResponse;
+        return productRepository.findResponseById(productId).orElseThrow(() -> new ProductServiceExeption("Product not found","PRODUCT_NOT_FOUND"));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductBatchResponse getProductsByIds(List<Long> productIds) {
+        // duplicates are answered once, the request order is kept
+        Collection<Long> uniqueIds = new LinkedHashSet<>(productIds);
+        if (uniqueIds.size() > MAX_PAGE_SIZE) {
+            throw new ProductServiceExeption("At most " + MAX_PAGE_SIZE + " ids per request", "TOO_MANY_IDS");
+        }
+        Map<Long, ProductResponse> products = findProducts(uniqueIds);
+        List<ProductResponse> productResponses = new ArrayList<>(products.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long productId : uniqueIds) {
+            ProductResponse productResponse = products.get(productId);
+            if (productResponse != null) {
+                productResponses.add(productResponse);
+            } else {
+                missingIds.add(productId);
+            }
+        }
+        return new ProductBatchResponse(productResponses, missingIds);
+    }
+
+    // serves what it can from the product cache and loads the rest with a single IN query
+    private Map<Long, ProductResponse> findProducts(Collection<Long> productIds) {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCT_CACHE);
+        Map<Long, ProductResponse> products = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long productId : productIds) {
+            ProductResponse cached = cache.get(productId, ProductResponse.class);
+            if (cached != null) {
+                products.put(productId, cached);
+            } else {
+                misses.add(productId);
+            }
+        }
+        if (!misses.isEmpty()) {
+            for (ProductResponse productResponse : productRepository.findResponsesByIds(misses)) {
+                products.put(productResponse.getProductId(), productResponse);
+                cache.put(productResponse.getProductId(), productResponse);
+            }
+        }
+        return products;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductResponse> searchProducts(String query, Integer limit) {
+        int size = (limit == null || limit <= 0) ? DEFAULT_SEARCH_LIMIT : Math.min(limit, MAX_SEARCH_LIMIT);
+        List<Long> productIds = productSearchIndex.search(query, size);
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        // the index only ranks ids, name, price and stock come from the cache or one IN query
+        Map<Long, ProductResponse> products = findProducts(productIds);
+        List<ProductResponse> productResponses = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            ProductResponse productResponse = products.get(productId);
+            if (productResponse != null) {
+                productResponses.add(productResponse);
+            }
+        }
+        return productResponses;
     }
 
     @Override
+    @CacheEvict(value = CacheConfig.PRODUCT_CACHE, key = "#productId")
     public void reduceQuantity(Long productId, Long quantity) {
-        // need to get the product by id or throw exception
-        Product product = productRepository.findById(productId).orElseThrow(() -> new ProductServiceExeption("Product not found","PRODUCT_NOT_FOUND"));
-        //check if the product quantity is less than the requested quantity
-        if (product.getQuantity() < quantity) {
-            throw new ProductServiceExeption("Insufficient quantity for product wit ID:"+productId, "INSUFFICIENT_QUANTITY");
-        }
-        //reduce the quantity
-        product.setQuantity(product.getQuantity() - quantity);
-        productRepository.save(product);
+        hotProductTracker.record(HotProductTracker.Operation.REDUCE, productId);
+        boolean sharded = shardedInventory.isSharded(productId);
+        if (sharded) {
+            shardedInventory.reduceQuantity(productId, quantity);
+        } else {
+            sharded = reduceUnsharded(productId, quantity);
+        }
+        // the ledger publishes once its write-behind has reached the table, sharded stock never goes through it
+        if (stockUpdateStrategy != StockUpdateStrategy.LEDGER || sharded) {
+            eventPublisher.publishEvent(new StockChangedEvent(List.of(productId)));
+        }
+    }
+
+    // true if the product turned out to be sharded and the shards were reduced instead
+    private boolean reduceUnsharded(Long productId, Long quantity) {
+        try {
+            // the updater runs its own transaction(s), see StockUpdateStrategy
+            stockUpdater.reduceQuantity(productId, quantity);
+            return false;
+        } catch (ProductServiceExeption ex) {
+            // the product may have been sharded since the last refresh, its quantity column is 0 then
+            if (!shardedSinceRefresh(ex, productId)) {
+                throw ex;
+            }
+            shardedInventory.reduceQuantity(productId, quantity);
+            return true;
+        }
+    }
+
+    private boolean shardedSinceRefresh(ProductServiceExeption ex, Long productId) {
+        return ("INSUFFICIENT_QUANTITY".equals(ex.getStatusCode()) || "STOCK_SHARDED".equals(ex.getStatusCode()))
+                && shardedInventory.checkSharded(productId);
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(value = CacheConfig.PRODUCT_CACHE, key = "#productId")
+    public void increaseQuantity(Long productId, Long quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new ProductServiceExeption("Invalid quantity for product wit ID:"+productId, "INVALID_QUANTITY");
+        }
+        if (ledgerStockUpdater != null) {
+            increaseLedger(productId, quantity);
+        } else if (productRepository.increaseQuantity(productId, quantity) == 0) {
+            // unknown or sharded product, ShardedInventory tells them apart
+            shardedInventory.increaseQuantity(productId, quantity);
+        }
+        eventPublisher.publishEvent(new StockChangedEvent(List.of(productId)));
+    }
+
+    // the ledger's counter would not see a direct update of the row and keep selling the old stock
+    private void increaseLedger(Long productId, Long quantity) {
+        if (shardedInventory.isSharded(productId)) {
+            shardedInventory.increaseQuantity(productId, quantity);
+            return;
+        }
+        try {
+            ledgerStockUpdater.increaseQuantity(productId, quantity);
+        } catch (ProductServiceExeption ex) {
+            if (!shardedSinceRefresh(ex, productId)) {
+                throw ex;
+            }
+            shardedInventory.increaseQuantity(productId, quantity);
+        }
+    }
+
+    @Override
+    @CacheEvict(value = CacheConfig.PRODUCT_CACHE, key = "#productId")
+    public void enableStockSharding(Long productId, Integer shardCount) {
+        rejectShardingChangeWithLedger();
+        shardedInventory.enableSharding(productId, shardCount);
+    }
+
+    @Override
+    @CacheEvict(value = CacheConfig.PRODUCT_CACHE, key = "#productId")
+    public void disableStockSharding(Long productId) {
+        rejectShardingChangeWithLedger();
+        shardedInventory.disableSharding(productId);
+    }
+
+    // moving stock between the row and the shards would happen behind the ledger's counters
+    private void rejectShardingChangeWithLedger() {
+        if (ledgerStockUpdater != null) {
+            throw new ProductServiceExeption("Stock sharding can't be changed with the LEDGER stock strategy", "SHARDING_UNAVAILABLE");
+        }
+    }
+
+    @Override
+    @Transactional
+    public void reduceQuantities(List<ProductQuantityRequest> items) {
+        // merge repeated lines and sort by id so concurrent carts always lock rows in the same order
+        Map<Long, Long> quantities = new TreeMap<>();
+        for (ProductQuantityRequest item : items) {
+            if (item.getProductId() == null || item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new ProductServiceExeption("Invalid quantity for product wit ID:"+item.getProductId(), "INVALID_QUANTITY");
+            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Long::sum);
+        }
+        quantities.keySet().forEach(productId -> hotProductTracker.record(HotProductTracker.Operation.REDUCE, productId));
+        if (quantities.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Long>> lines = new ArrayList<>();
+        List<Map.Entry<Long, Long>> shardedLines = new ArrayList<>();
+        for (Map.Entry<Long, Long> line : quantities.entrySet()) {
+            (shardedInventory.isSharded(line.getKey()) ? shardedLines : lines).add(line);
+        }
+        // the ledger publishes its lines once its write-behind has reached the table, as in reduceQuantity
+        List<Long> changed = new ArrayList<>();
+        if (ledgerStockUpdater != null) {
+            // a line reduced in the ledger is given back when a later line fails and this transaction rolls back
+            for (Map.Entry<Long, Long> line : lines) {
+                if (reduceUnsharded(line.getKey(), line.getValue())) {
+                    changed.add(line.getKey());
+                }
+            }
+        } else {
+            reduceUnsharded(lines);
+            lines.forEach(line -> changed.add(line.getKey()));
+        }
+        // joins this transaction, a failure here rolls back the whole cart as well
+        shardedLines.forEach(line -> shardedInventory.reduceQuantity(line.getKey(), line.getValue()));
+        shardedLines.forEach(line -> changed.add(line.getKey()));
+        // evicted once the transaction commits, see CacheConfig
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCT_CACHE);
+        quantities.keySet().forEach(cache::evict);
+        if (!changed.isEmpty()) {
+            eventPublisher.publishEvent(new StockChangedEvent(changed));
+        }
+    }
+
+    private void reduceUnsharded(List<Map.Entry<Long, Long>> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        // one JDBC batch for the whole cart
+        int[] updated = jdbcTemplate.batchUpdate(REDUCE_QUANTITY_SQL, lines, lines.size(), (ps, line) -> {
+            ps.setLong(1, line.getValue());
+            ps.setLong(2, line.getKey());
+            ps.setLong(3, line.getValue());
+        })[0];
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                // throwing rolls back the lines that were already reduced
+                Long productId = lines.get(i).getKey();
+                if (!productRepository.existsById(productId)) {
+                    throw new ProductServiceExeption("Product not found","PRODUCT_NOT_FOUND");
+                }
+                if (!shardedInventory.checkSharded(productId)) {
+                    throw new ProductServiceExeption("Insufficient quantity for product wit ID:"+productId, "INSUFFICIENT_QUANTITY");
+                }
+                shardedInventory.reduceQuantity(productId, lines.get(i).getValue());
+            }
+        }
     }
 }
@@ -0,0 +1,131 @@
+package com.zia.product.service.service.impl;
+
+import com.zia.product.service.dto.ProductQuantityRequest;
+import com.zia.product.service.dto.ReservationRequest;
+import com.zia.product.service.dto.ReservationResponse;
+import com.zia.product.service.entity.ReservationStatus;
+import com.zia.product.service.entity.StockReservation;
+import com.zia.product.service.exeption.ProductServiceExeption;
+import com.zia.product.service.repository.StockReservationRepository;
+import com.zia.product.service.reservation.ReservationExpirer;
+import com.zia.product.service.service.ProductService;
+import com.zia.product.service.service.ReservationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+@Service
+public class ReservationServiceImpl implements ReservationService {
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ReservationExpirer reservationExpirer;
+
+    @Value("${product.reservation.default-ttl:15m}")
+    private Duration defaultTtl;
+
+    @Value("${product.reservation.max-ttl:24h}")
+    private Duration maxTtl;
+
+    @Override
+    @Transactional
+    public ReservationResponse reserve(ReservationRequest reservationRequest) {
+        Duration ttl = reservationRequest.getTtlSeconds() == null ? defaultTtl : Duration.ofSeconds(reservationRequest.getTtlSeconds());
+        if (ttl.isNegative() || ttl.isZero() || ttl.compareTo(maxTtl) > 0) {
+            throw new ProductServiceExeption("Reservation TTL must be between 1s and " + maxTtl.toSeconds() + "s", "INVALID_TTL");
+        }
+        String idempotencyKey = reservationRequest.getIdempotencyKey();
+        if (idempotencyKey != null) {
+            // a retry of a call whose answer was lost; two retries racing each other are stopped by
+            // the unique key, the loser rolls back its stock and finds this reservation on its next try
+            StockReservation existing = reservationRepository.findByIdempotencyKey(idempotencyKey).orElse(null);
+            if (existing != null) {
+                if (!existing.getProductId().equals(reservationRequest.getProductId())
+                        || !Objects.equals(existing.getQuantity(), reservationRequest.getQuantity())) {
+                    throw new ProductServiceExeption("Idempotency key " + idempotencyKey + " belongs to another reservation", "IDEMPOTENCY_KEY_REUSED");
+                }
+                return toResponse(existing);
+            }
+        }
+        // same checks and sharding support as a cart, in this transaction
+        productService.reduceQuantities(List.of(new ProductQuantityRequest(reservationRequest.getProductId(), reservationRequest.getQuantity())));
+
+        Instant now = Instant.now();
+        StockReservation reservation = new StockReservation();
+        reservation.setProductId(reservationRequest.getProductId());
+        reservation.setQuantity(reservationRequest.getQuantity());
+        reservation.setStatus(ReservationStatus.PENDING);
+        reservation.setCreatedAt(now);
+        reservation.setExpiresAt(now.plus(ttl));
+        reservation.setIdempotencyKey(idempotencyKey);
+        reservation = reservationRepository.save(reservation);
+        // if this transaction rolls back the timer finds no pending row and does nothing
+        reservationExpirer.schedule(reservation.getReservationId(), reservation.getExpiresAt());
+        return toResponse(reservation);
+    }
+
+    @Override
+    @Transactional
+    public ReservationResponse confirm(Long reservationId) {
+        if (reservationRepository.confirmIfPending(reservationId, Instant.now()) == 1) {
+            reservationExpirer.cancel(reservationId);
+            return getReservation(reservationId);
+        }
+        StockReservation reservation = findReservation(reservationId);
+        if (reservation.getStatus() == ReservationStatus.CONFIRMED) {
+            // repeated confirm, e.g. a retried request
+            return toResponse(reservation);
+        }
+        // still pending here means the deadline passed and the expiry tick hasn't run yet
+        throw new ProductServiceExeption("Reservation with ID:" + reservationId + " is " +
+                (reservation.getStatus() == ReservationStatus.PENDING ? ReservationStatus.EXPIRED : reservation.getStatus()),
+                "RESERVATION_NOT_PENDING");
+    }
+
+    @Override
+    @Transactional
+    public ReservationResponse release(Long reservationId) {
+        if (reservationRepository.updateStatusIfPending(reservationId, ReservationStatus.RELEASED) == 1) {
+            reservationExpirer.cancel(reservationId);
+            StockReservation reservation = findReservation(reservationId);
+            productService.increaseQuantity(reservation.getProductId(), reservation.getQuantity());
+            return toResponse(reservation);
+        }
+        StockReservation reservation = findReservation(reservationId);
+        if (reservation.getStatus() == ReservationStatus.CONFIRMED) {
+            throw new ProductServiceExeption("Reservation with ID:" + reservationId + " is CONFIRMED", "RESERVATION_NOT_PENDING");
+        }
+        // already released or expired, the stock is back either way
+        return toResponse(reservation);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ReservationResponse getReservation(Long reservationId) {
+        return toResponse(findReservation(reservationId));
+    }
+
+    private StockReservation findReservation(Long reservationId) {
+        return reservationRepository.findById(reservationId).orElseThrow(() -> new ProductServiceExeption("Reservation not found","RESERVATION_NOT_FOUND"));
+    }
+
+    private static ReservationResponse toResponse(StockReservation reservation) {
+        return new ReservationResponse(
+                reservation.getReservationId(),
+                reservation.getProductId(),
+                reservation.getQuantity(),
+                reservation.getStatus(),
+                reservation.getExpiresAt());
+    }
+}
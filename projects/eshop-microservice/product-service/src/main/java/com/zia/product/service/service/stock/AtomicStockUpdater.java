@@ -0,0 +1,37 @@
+package com.zia.product.service.service.stock;
+
+import com.zia.product.service.exeption.ProductServiceExeption;
+import com.zia.product.service.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Component
+public class AtomicStockUpdater implements StockUpdater {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public StockUpdateStrategy strategy() {
+        return StockUpdateStrategy.ATOMIC;
+    }
+
+    @Override
+    public void reduceQuantity(Long productId, Long quantity) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // decrement in one conditional UPDATE so concurrent orders can't overwrite each other
+            int updated = productRepository.reduceQuantityIfAvailable(productId, quantity);
+            if (updated == 0) {
+                // nothing was updated, find out why to keep the same error codes for the callers
+                if (!productRepository.existsById(productId)) {
+                    throw new ProductServiceExeption("Product not found","PRODUCT_NOT_FOUND");
+                }
+                throw new ProductServiceExeption("Insufficient quantity for product wit ID:"+productId, "INSUFFICIENT_QUANTITY");
+            }
+        });
+    }
+}
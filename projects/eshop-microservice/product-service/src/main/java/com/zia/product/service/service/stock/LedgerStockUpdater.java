@@ -0,0 +1,510 @@
+package com.zia.product.service.service.stock;
+
+import com.zia.product.service.config.CacheConfig;
+import com.zia.product.service.dto.ProductResponse;
+import com.zia.product.service.entity.Product;
+import com.zia.product.service.entity.StockLedgerCheckpoint;
+import com.zia.product.service.event.StockChangedEvent;
+import com.zia.product.service.exeption.ProductServiceExeption;
+import com.zia.product.service.repository.ProductRepository;
+import com.zia.product.service.repository.StockLedgerCheckpointRepository;
+import com.zia.product.service.service.stock.StockLedgerLog.LedgerRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Serves reductions from in-memory counters and writes them to MySQL behind the caller's back.
+ * A reduction is a CAS on the product's counter plus one record appended to the local StockLedgerLog;
+ * every flush-interval the records are summed per product and applied in one JDBC batch, together with
+ * a checkpoint of the last applied record. On startup the records after the checkpoint are replayed.
+ * Counters are re-read from the database every resync-interval.
+ *
+ * The counter is only right if every stock change goes through it: returned stock is logged as a negative
+ * reduction, a reduction inside a transaction is given back if that transaction rolls back, and sharded
+ * products get no counter at all (ProductServiceImpl keeps them on the shards and refuses to change
+ * sharding in this mode). A product whose row holds less than the flush is about to take is left out of the
+ * batch and parked with a growing backoff while the other products keep flushing; its records are logged
+ * again past the checkpoint, so they are still replayed after a crash. The quantity never goes negative.
+ * Each instance has its own counters, so this mode is meant for one instance owning the hot stock.
+ */
+@Component
+@ConditionalOnProperty(name = "product.stock.strategy", havingValue = "LEDGER")
+public class LedgerStockUpdater implements StockUpdater {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerStockUpdater.class);
+
+    private static final String FLUSH_SQL =
+            "update products set quantity = quantity - ?, version = version + 1 where product_id = ? and quantity >= ?";
+
+    private static final int RESYNC_BATCH_SIZE = 500;
+
+    private static final Duration PARK_MIN_BACKOFF = Duration.ofMillis(100);
+    private static final Duration PARK_MAX_BACKOFF = Duration.ofSeconds(1);
+
+    // a database that is down fails every flush, one stack trace per interval is enough
+    private static final Duration ERROR_LOG_INTERVAL = Duration.ofSeconds(10);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockLedgerCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${product.stock.ledger.id:product-service}")
+    private String ledgerId;
+
+    @Value("${product.stock.ledger.log-path:data/stock-ledger.log}")
+    private Path logPath;
+
+    @Value("${product.stock.ledger.fsync:false}")
+    private boolean fsync;
+
+    @Value("${product.stock.ledger.flush-interval:5ms}")
+    private Duration flushInterval;
+
+    @Value("${product.stock.ledger.resync-interval:100ms}")
+    private Duration resyncInterval;
+
+    @Value("${product.stock.ledger.max-log-size:64MB}")
+    private DataSize maxLogSize;
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    // guards the log, the sequence and the records not yet applied to the database
+    private final ReentrantLock logLock = new ReentrantLock();
+    private StockLedgerLog ledgerLog;
+    private long nextSeq;
+    private List<LedgerRecord> unflushed = new ArrayList<>();
+
+    private ScheduledExecutorService flusher;
+    private long lastResyncMillis;
+    // products the table can't cover right now; flush thread only
+    private final Map<Long, Parked> parked = new HashMap<>();
+    private long lastErrorLogMillis;
+    private int suppressedErrors;
+
+    @Override
+    public StockUpdateStrategy strategy() {
+        return StockUpdateStrategy.LEDGER;
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        ledgerLog = new StockLedgerLog(logPath, fsync);
+        recover();
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-ledger-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        // whatever is left stays in the log if this fails and is replayed on the next start
+        flushQuietly();
+        logLock.lock();
+        try {
+            if (unflushed.isEmpty()) {
+                ledgerLog.truncate();
+            }
+            ledgerLog.close();
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    // throws STOCK_SHARDED for a sharded product, its stock is on the shards and not in the ledger
+    @Override
+    public void reduceQuantity(Long productId, Long quantity) {
+        Counter counter = counters.computeIfAbsent(productId, this::load);
+        // counted as unflushed before the CAS, so a concurrent resync errs on the low side
+        counter.unflushed.addAndGet(quantity);
+        long available;
+        do {
+            available = counter.available.get();
+            if (available < quantity) {
+                counter.unflushed.addAndGet(-quantity);
+                throw new ProductServiceExeption("Insufficient quantity for product wit ID:"+productId, "INSUFFICIENT_QUANTITY");
+            }
+        } while (!counter.available.compareAndSet(available, available - quantity));
+
+        try {
+            append(productId, quantity);
+        } catch (IOException e) {
+            counter.available.addAndGet(quantity);
+            counter.unflushed.addAndGet(-quantity);
+            throw new UncheckedIOException("Could not append to the stock ledger", e);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // e.g. a reservation or one line of a cart, the stock comes back if the rest of it fails
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        giveBack(productId, counter, quantity);
+                    }
+                }
+            });
+        }
+    }
+
+    // stock coming back, e.g. a released reservation; applied once the caller's transaction has committed
+    public void increaseQuantity(Long productId, Long quantity) {
+        // loaded right away, so an unknown or sharded product still fails the caller
+        Counter counter = counters.computeIfAbsent(productId, this::load);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    giveBack(productId, counter, quantity);
+                }
+            });
+        } else {
+            giveBack(productId, counter, quantity);
+        }
+    }
+
+    // a negative reduction; a crash before the append loses it, which only ever errs on the low side
+    private void giveBack(Long productId, Counter counter, long quantity) {
+        try {
+            append(productId, -quantity);
+        } catch (IOException e) {
+            log.error("Could not return {} units of product {} to the stock ledger", quantity, productId, e);
+            return;
+        }
+        // available first, so a concurrent resync can only miss the returned stock, never count it twice
+        counter.available.addAndGet(quantity);
+        counter.unflushed.addAndGet(-quantity);
+    }
+
+    private void append(Long productId, long quantity) throws IOException {
+        logLock.lock();
+        try {
+            long seq = nextSeq++;
+            ledgerLog.append(seq, productId, quantity);
+            unflushed.add(new LedgerRecord(seq, productId, quantity));
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    private Counter load(Long productId) {
+        Product product = productRepository.findById(productId).orElseThrow(() -> new ProductServiceExeption("Product not found","PRODUCT_NOT_FOUND"));
+        if (product.getStockShards() > 0) {
+            throw new ProductServiceExeption("Stock of product wit ID:" + productId + " is sharded", "STOCK_SHARDED");
+        }
+        return new Counter(product.getQuantity());
+    }
+
+    // applies what a previous run logged but never flushed, then starts a fresh log
+    private void recover() throws IOException {
+        long checkpoint = checkpointRepository.findById(ledgerId)
+                .orElseGet(() -> checkpointRepository.save(new StockLedgerCheckpoint(ledgerId, 0L)))
+                .getLastSeq();
+        List<LedgerRecord> records = ledgerLog.readAfter(checkpoint);
+        if (!records.isEmpty()) {
+            // no counters exist yet that could hold back a short product, so it is reported instead of failing the start
+            Applied applied = apply(sum(records), records.get(records.size() - 1).seq(), kept -> { });
+            log.info("Replayed {} stock ledger records after checkpoint {}", records.size(), checkpoint);
+            if (!applied.shortDeltas().isEmpty() || !applied.gone().isEmpty()) {
+                log.error("Dropped stock ledger records the products table could not take, quantities per product: short {}, deleted {}",
+                        applied.shortDeltas(), applied.gone());
+            }
+        }
+        nextSeq = (records.isEmpty() ? checkpoint : records.get(records.size() - 1).seq()) + 1;
+        ledgerLog.truncate();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException | IOException ex) {
+            // never let an exception cancel the periodic task
+            long now = System.currentTimeMillis();
+            if (now - lastErrorLogMillis >= ERROR_LOG_INTERVAL.toMillis()) {
+                log.error("Stock ledger flush failed, {} failures not logged since the last one", suppressedErrors, ex);
+                lastErrorLogMillis = now;
+                suppressedErrors = 0;
+            } else {
+                suppressedErrors++;
+            }
+        }
+    }
+
+    void flush() throws IOException {
+        List<LedgerRecord> batch;
+        logLock.lock();
+        try {
+            if (unflushed.isEmpty()) {
+                batch = List.of();
+            } else {
+                batch = unflushed;
+                unflushed = new ArrayList<>();
+            }
+        } finally {
+            logLock.unlock();
+        }
+        try {
+            if (!batch.isEmpty()) {
+                flush(batch);
+            }
+        } finally {
+            // the counters still follow the table, a product that is short stops selling
+            resyncIfDue();
+        }
+        logLock.lock();
+        try {
+            // everything before the checkpoint is in the database, only the records not flushed yet are kept
+            if (ledgerLog.size() > maxLogSize.toBytes()) {
+                if (unflushed.isEmpty()) {
+                    ledgerLog.truncate();
+                } else {
+                    ledgerLog.rewrite(unflushed);
+                }
+            }
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    private void flush(List<LedgerRecord> batch) {
+        long now = System.currentTimeMillis();
+        Map<Long, Long> deltas = new TreeMap<>();
+        Map<Long, Long> held = new TreeMap<>();
+        for (LedgerRecord record : batch) {
+            Parked parkedProduct = parked.get(record.productId());
+            boolean due = parkedProduct == null || parkedProduct.untilMillis() <= now;
+            (due ? deltas : held).merge(record.productId(), record.quantity(), Long::sum);
+        }
+        if (deltas.isEmpty()) {
+            putBack(batch);
+            return;
+        }
+        List<LedgerRecord> relogged = new ArrayList<>();
+        Applied applied;
+        try {
+            applied = apply(deltas, batch.get(batch.size() - 1).seq(), shortDeltas -> {
+                Map<Long, Long> kept = new TreeMap<>(held);
+                kept.putAll(shortDeltas);
+                relogged.addAll(relog(kept));
+            });
+        } catch (RuntimeException ex) {
+            // a product logged again is in unflushed already, the rest goes back in front for the next flush
+            Set<Long> reloggedIds = relogged.stream().map(LedgerRecord::productId).collect(Collectors.toSet());
+            putBack(batch.stream().filter(record -> !reloggedIds.contains(record.productId())).toList());
+            throw ex;
+        }
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCT_CACHE);
+        applied.deltas().forEach((productId, delta) -> {
+            Counter counter = counters.get(productId);
+            if (counter != null) {
+                counter.unflushed.addAndGet(-delta);
+            }
+            cache.evict(productId);
+            if (parked.remove(productId) != null) {
+                log.info("Stock ledger flushes product {} again", productId);
+            }
+        });
+        applied.gone().forEach((productId, delta) -> {
+            counters.remove(productId);
+            parked.remove(productId);
+            cache.evict(productId);
+            log.warn("Dropped {} units of deleted product {} from the stock ledger", delta, productId);
+        });
+        applied.shortDeltas().forEach((productId, delta) -> park(productId, delta, now));
+        if (!applied.deltas().isEmpty()) {
+            eventPublisher.publishEvent(new StockChangedEvent(applied.deltas().keySet()));
+        }
+    }
+
+    private void putBack(List<LedgerRecord> records) {
+        logLock.lock();
+        try {
+            List<LedgerRecord> merged = new ArrayList<>(records);
+            merged.addAll(unflushed);
+            unflushed = merged;
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    // one record per product after everything logged so far, so the checkpoint can move past the old ones
+    private List<LedgerRecord> relog(Map<Long, Long> kept) {
+        if (kept.isEmpty()) {
+            return List.of();
+        }
+        logLock.lock();
+        try {
+            List<LedgerRecord> records = new ArrayList<>(kept.size());
+            for (Map.Entry<Long, Long> line : kept.entrySet()) {
+                LedgerRecord record = new LedgerRecord(nextSeq++, line.getKey(), line.getValue());
+                ledgerLog.append(record.seq(), record.productId(), record.quantity());
+                records.add(record);
+            }
+            unflushed.addAll(records);
+            return records;
+        } catch (IOException e) {
+            // the transaction rolls back, records already appended are only replayed twice after a crash
+            throw new UncheckedIOException("Could not log parked stock ledger records again", e);
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    private void park(Long productId, long quantity, long now) {
+        Parked previous = parked.get(productId);
+        long backoff = previous == null
+                ? PARK_MIN_BACKOFF.toMillis()
+                : Math.min(previous.backoffMillis() * 2, PARK_MAX_BACKOFF.toMillis());
+        parked.put(productId, new Parked(now + backoff, backoff));
+        if (previous == null) {
+            // someone changed the table behind the ledger
+            log.warn("Product {} holds less stock in the table than the {} units the stock ledger takes, retried with backoff", productId, quantity);
+        }
+    }
+
+    // the batch and the checkpoint in one transaction, so a record is applied exactly once; a product the table
+    // can't cover is left out and the rest applied again, keep gets those lines before the checkpoint moves
+    private Applied apply(Map<Long, Long> deltas, long lastSeq, Consumer<Map<Long, Long>> keep) {
+        Map<Long, Long> shortDeltas = new TreeMap<>();
+        Map<Long, Long> gone = new TreeMap<>();
+        while (true) {
+            // sorted by id, so the row locks are always taken in the same order
+            List<Map.Entry<Long, Long>> lines = deltas.entrySet().stream()
+                    .filter(line -> line.getValue() != 0)
+                    .filter(line -> !shortDeltas.containsKey(line.getKey()) && !gone.containsKey(line.getKey()))
+                    .toList();
+            List<Long> failedIds = transactionTemplate.execute(status -> {
+                List<Long> failed = new ArrayList<>();
+                if (!lines.isEmpty()) {
+                    int[] updated = jdbcTemplate.batchUpdate(FLUSH_SQL, lines, lines.size(), (ps, line) -> {
+                        ps.setLong(1, line.getValue());
+                        ps.setLong(2, line.getKey());
+                        ps.setLong(3, line.getValue());
+                    })[0];
+                    for (int i = 0; i < updated.length; i++) {
+                        if (updated[i] == 0) {
+                            failed.add(lines.get(i).getKey());
+                        }
+                    }
+                }
+                if (!failed.isEmpty()) {
+                    status.setRollbackOnly();
+                    return failed;
+                }
+                keep.accept(shortDeltas);
+                checkpointRepository.updateLastSeq(ledgerId, lastSeq);
+                return failed;
+            });
+            if (failedIds.isEmpty()) {
+                return new Applied(lines.stream().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)), shortDeltas, gone);
+            }
+            for (Long productId : failedIds) {
+                (productRepository.existsById(productId) ? shortDeltas : gone).put(productId, deltas.get(productId));
+            }
+        }
+    }
+
+    // summed per product and sorted by id
+    private static Map<Long, Long> sum(List<LedgerRecord> records) {
+        Map<Long, Long> deltas = new TreeMap<>();
+        for (LedgerRecord record : records) {
+            deltas.merge(record.productId(), record.quantity(), Long::sum);
+        }
+        return deltas;
+    }
+
+    private void resyncIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastResyncMillis >= resyncInterval.toMillis()) {
+            resync();
+            lastResyncMillis = now;
+        }
+    }
+
+    // counter = database quantity - reductions not flushed yet; runs on the flush thread only
+    private void resync() {
+        List<Long> productIds = new ArrayList<>(counters.keySet());
+        for (int from = 0; from < productIds.size(); from += RESYNC_BATCH_SIZE) {
+            List<Long> chunk = productIds.subList(from, Math.min(from + RESYNC_BATCH_SIZE, productIds.size()));
+            List<Long> missing = new ArrayList<>(chunk);
+            for (ProductResponse productResponse : productRepository.findResponsesByIds(chunk)) {
+                missing.remove(productResponse.getProductId());
+                Counter counter = counters.get(productResponse.getProductId());
+                long current;
+                long target;
+                do {
+                    current = counter.available.get();
+                    target = productResponse.getQuantity() - counter.unflushed.get();
+                } while (!counter.available.compareAndSet(current, target));
+            }
+            // deleted products
+            missing.forEach(counters::remove);
+        }
+    }
+
+    private record Parked(long untilMillis, long backoffMillis) {
+    }
+
+    // what went into the table, what was short of stock and what belonged to deleted products
+    private record Applied(Map<Long, Long> deltas, Map<Long, Long> shortDeltas, Map<Long, Long> gone) {
+    }
+
+    private static final class Counter {
+        private final AtomicLong available;
+        private final AtomicLong unflushed = new AtomicLong();
+
+        private Counter(long available) {
+            this.available = new AtomicLong(available);
+        }
+    }
+}
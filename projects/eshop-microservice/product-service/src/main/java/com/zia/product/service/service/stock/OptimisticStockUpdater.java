@@ -0,0 +1,76 @@
+package com.zia.product.service.service.stock;
+
+import com.zia.product.service.entity.Product;
+import com.zia.product.service.exeption.ProductServiceExeption;
+import com.zia.product.service.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Component
+public class OptimisticStockUpdater implements StockUpdater {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private StockMetrics stockMetrics;
+
+    @Value("${product.stock.optimistic.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${product.stock.optimistic.backoff:5ms}")
+    private Duration backoff;
+
+    @Override
+    public StockUpdateStrategy strategy() {
+        return StockUpdateStrategy.OPTIMISTIC;
+    }
+
+    @Override
+    public void reduceQuantity(Long productId, Long quantity) {
+        // inside someone else's transaction a failed attempt can't be retried, it has to roll back the caller
+        int attempts = TransactionSynchronizationManager.isActualTransactionActive() ? 1 : maxAttempts;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    Product product = productRepository.findById(productId).orElseThrow(() -> new ProductServiceExeption("Product not found","PRODUCT_NOT_FOUND"));
+                    if (product.getQuantity() < quantity) {
+                        throw new ProductServiceExeption("Insufficient quantity for product wit ID:"+productId, "INSUFFICIENT_QUANTITY");
+                    }
+                    product.setQuantity(product.getQuantity() - quantity);
+                    // flush here so a version conflict surfaces inside this attempt
+                    productRepository.flush();
+                });
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                stockMetrics.abort(strategy());
+                if (attempt >= attempts) {
+                    stockMetrics.failure(strategy());
+                    throw new ProductServiceExeption("Concurrent update on product wit ID:"+productId, "CONCURRENT_UPDATE");
+                }
+                sleepWithJitter(productId, attempt);
+            }
+        }
+    }
+
+    // full jitter: a random pause up to backoff * 2^(attempt-1) so the losers don't collide again
+    private void sleepWithJitter(Long productId, int attempt) {
+        long maxNanos = backoff.toNanos() << Math.min(attempt - 1, 10);
+        try {
+            Thread.sleep(Duration.ofNanos(ThreadLocalRandom.current().nextLong(maxNanos + 1)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProductServiceExeption("Interrupted while updating product wit ID:"+productId, "CONCURRENT_UPDATE");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.zia.product.service.service.stock;
+
+import com.zia.product.service.entity.Product;
+import com.zia.product.service.exeption.ProductServiceExeption;
+import com.zia.product.service.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Component
+public class PessimisticStockUpdater implements StockUpdater {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private StockMetrics stockMetrics;
+
+    @Override
+    public StockUpdateStrategy strategy() {
+        return StockUpdateStrategy.PESSIMISTIC;
+    }
+
+    @Override
+    public void reduceQuantity(Long productId, Long quantity) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // the row stays locked until commit, other writers wait here
+                Product product = productRepository.findByIdForUpdate(productId).orElseThrow(() -> new ProductServiceExeption("Product not found","PRODUCT_NOT_FOUND"));
+                if (product.getQuantity() < quantity) {
+                    throw new ProductServiceExeption("Insufficient quantity for product wit ID:"+productId, "INSUFFICIENT_QUANTITY");
+                }
+                product.setQuantity(product.getQuantity() - quantity);
+            });
+        } catch (PessimisticLockingFailureException e) {
+            // lock wait timeout or deadlock victim
+            stockMetrics.abort(strategy());
+            stockMetrics.failure(strategy());
+            throw new ProductServiceExeption("Could not lock product wit ID:"+productId, "CONCURRENT_UPDATE");
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.zia.product.service.service.stock;
+
+import com.zia.product.service.entity.Product;
+import com.zia.product.service.entity.ProductStockShard;
+import com.zia.product.service.exeption.ProductServiceExeption;
+import com.zia.product.service.repository.ProductRepository;
+import com.zia.product.service.repository.ProductStockShardRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Opt-in sharded stock for ultra-hot products.
+ * The stock of a sharded product is split over N rows of product_stock_shards, a reduction picks a
+ * random shard and moves on to the next one when that shard can't serve it, so concurrent orders
+ * mostly lock different rows. products.quantity stays 0 while the product is sharded, reads sum the shards.
+ */
+@Service
+public class ShardedInventory {
+
+    public static final int MAX_SHARDS = 64;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductStockShardRepository shardRepository;
+
+    private TransactionTemplate transactionTemplate;
+
+    // ids of sharded products, refreshed from the database so changes made by other instances show up
+    private final Set<Long> shardedProductIds = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    void setTransactionManager(PlatformTransactionManager transactionManager) {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // a failed conditional UPDATE must not keep its shard locked until commit (REPEATABLE READ would)
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${product.stock.shards.refresh-interval:5s}")
+    public void refresh() {
+        List<Long> productIds = productRepository.findShardedProductIds();
+        shardedProductIds.retainAll(productIds);
+        shardedProductIds.addAll(productIds);
+    }
+
+    public boolean isSharded(Long productId) {
+        return shardedProductIds.contains(productId);
+    }
+
+    // asks the database, for when a product may have been sharded since the last refresh
+    public boolean checkSharded(Long productId) {
+        boolean sharded = productRepository.findStockShardsById(productId).orElse(0) > 0;
+        if (sharded) {
+            shardedProductIds.add(productId);
+        } else {
+            shardedProductIds.remove(productId);
+        }
+        return sharded;
+    }
+
+    public void reduceQuantity(Long productId, Long quantity) {
+        transactionTemplate.executeWithoutResult(status -> {
+            int shardCount = productRepository.findStockShardsById(productId).orElseThrow(() -> new ProductServiceExeption("Product not found","PRODUCT_NOT_FOUND"));
+            if (shardCount == 0) {
+                // sharding was turned off in the meantime, the stock is back on the product row
+                if (productRepository.reduceQuantityIfAvailable(productId, quantity) == 0) {
+                    throw new ProductServiceExeption("Insufficient quantity for product wit ID:"+productId, "INSUFFICIENT_QUANTITY");
+                }
+                return;
+            }
+            int start = ThreadLocalRandom.current().nextInt(shardCount);
+            for (int i = 0; i < shardCount; i++) {
+                if (shardRepository.reduceQuantityIfAvailable(productId, (start + i) % shardCount, quantity) == 1) {
+                    return;
+                }
+            }
+            // no single shard holds enough, take it from several of them under lock
+            List<ProductStockShard> shards = shardRepository.findByProductIdForUpdate(productId);
+            long available = shards.stream().mapToLong(ProductStockShard::getQuantity).sum();
+            if (available < quantity) {
+                throw new ProductServiceExeption("Insufficient quantity for product wit ID:"+productId, "INSUFFICIENT_QUANTITY");
+            }
+            long remaining = quantity;
+            for (ProductStockShard shard : shards) {
+                long taken = Math.min(shard.getQuantity(), remaining);
+                shard.setQuantity(shard.getQuantity() - taken);
+                remaining -= taken;
+                if (remaining == 0) {
+                    break;
+                }
+            }
+        });
+    }
+
+    // returned stock goes to a random shard, or to the product row if sharding was turned off in the meantime
+    public void increaseQuantity(Long productId, Long quantity) {
+        transactionTemplate.executeWithoutResult(status -> {
+            int shardCount = productRepository.findStockShardsById(productId).orElseThrow(() -> new ProductServiceExeption("Product not found","PRODUCT_NOT_FOUND"));
+            if (shardCount == 0) {
+                productRepository.increaseQuantity(productId, quantity);
+            } else {
+                shardRepository.increaseQuantity(productId, ThreadLocalRandom.current().nextInt(shardCount), quantity);
+            }
+        });
+    }
+
+    // splits the current stock evenly over shardCount shards, re-sharding folds the old shards back first
+    public void enableSharding(Long productId, int shardCount) {
+        if (shardCount < 2 || shardCount > MAX_SHARDS) {
+            throw new ProductServiceExeption("Shard count must be between 2 and " + MAX_SHARDS, "INVALID_SHARD_COUNT");
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            Product product = productRepository.findByIdForUpdate(productId).orElseThrow(() -> new ProductServiceExeption("Product not found","PRODUCT_NOT_FOUND"));
+            long quantity = foldShards(product);
+            for (int shardNo = 0; shardNo < shardCount; shardNo++) {
+                // the first (quantity % shardCount) shards get one unit more
+                long shardQuantity = quantity / shardCount + (shardNo < quantity % shardCount ? 1 : 0);
+                shardRepository.save(new ProductStockShard(null, productId, shardNo, shardQuantity));
+            }
+            product.setQuantity(0L);
+            product.setStockShards(shardCount);
+        });
+        shardedProductIds.add(productId);
+    }
+
+    // moves the stock back into products.quantity
+    public void disableSharding(Long productId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Product product = productRepository.findByIdForUpdate(productId).orElseThrow(() -> new ProductServiceExeption("Product not found","PRODUCT_NOT_FOUND"));
+            product.setQuantity(foldShards(product));
+            product.setStockShards(0);
+        });
+        shardedProductIds.remove(productId);
+    }
+
+    // caller holds the product row lock; returns the whole stock and removes the shards
+    private long foldShards(Product product) {
+        if (product.getStockShards() == 0) {
+            return product.getQuantity();
+        }
+        long quantity = shardRepository.findByProductIdForUpdate(product.getProductId()).stream()
+                .mapToLong(ProductStockShard::getQuantity)
+                .sum();
+        shardRepository.deleteByProductId(product.getProductId());
+        return quantity;
+    }
+}
@@ -0,0 +1,143 @@
+package com.zia.product.service.service.stock;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Append-only file of stock reductions for StockLedger, fixed 32 byte records:
+ * sequence number, product id, quantity (negative for returned stock) and a check word.
+ * A record torn by a crash fails the check, reading stops there and the tail is cut off on open.
+ * Not thread safe, StockLedger serializes the calls.
+ */
+class StockLedgerLog implements AutoCloseable {
+
+    static final int RECORD_SIZE = 32;
+
+    private static final long CHECK_SEED = 0x5DEECE66DL;
+
+    private final Path path;
+    private final boolean fsync;
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+    private FileChannel channel;
+
+    StockLedgerLog(Path path, boolean fsync) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.fsync = fsync;
+        long validSize = readAll(record -> { });
+        channel.truncate(validSize);
+        channel.position(validSize);
+    }
+
+    // without fsync a record survives a crash of the process but not of the machine
+    void append(long seq, long productId, long quantity) throws IOException {
+        buffer.clear();
+        put(buffer, seq, productId, quantity);
+        write(channel, buffer);
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    List<LedgerRecord> readAfter(long seq) throws IOException {
+        List<LedgerRecord> records = new ArrayList<>();
+        readAll(record -> {
+            if (record.seq() > seq) {
+                records.add(record);
+            }
+        });
+        return records;
+    }
+
+    long size() throws IOException {
+        return channel.size();
+    }
+
+    void truncate() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+    }
+
+    // keeps only the given records; they go to a new file that replaces this one in one move, so a crash
+    // leaves either the old log or the new one
+    void rewrite(List<LedgerRecord> records) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer writeBuffer = ByteBuffer.allocate(RECORD_SIZE * 1024);
+            for (LedgerRecord record : records) {
+                if (writeBuffer.remaining() < RECORD_SIZE) {
+                    write(out, writeBuffer);
+                }
+                put(writeBuffer, record.seq(), record.productId(), record.quantity());
+            }
+            write(out, writeBuffer);
+            out.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel.close();
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // returns the length of the valid prefix
+    private long readAll(Consumer<LedgerRecord> consumer) throws IOException {
+        ByteBuffer readBuffer = ByteBuffer.allocate(RECORD_SIZE * 1024);
+        long position = 0;
+        long size = channel.size();
+        while (position + RECORD_SIZE <= size) {
+            readBuffer.clear();
+            int read = channel.read(readBuffer, position);
+            if (read < RECORD_SIZE) {
+                break;
+            }
+            readBuffer.flip();
+            while (readBuffer.remaining() >= RECORD_SIZE) {
+                long seq = readBuffer.getLong();
+                long productId = readBuffer.getLong();
+                long quantity = readBuffer.getLong();
+                if (readBuffer.getLong() != check(seq, productId, quantity)) {
+                    return position;
+                }
+                consumer.accept(new LedgerRecord(seq, productId, quantity));
+                position += RECORD_SIZE;
+            }
+        }
+        return position;
+    }
+
+    private static void put(ByteBuffer target, long seq, long productId, long quantity) {
+        target.putLong(seq).putLong(productId).putLong(quantity).putLong(check(seq, productId, quantity));
+    }
+
+    private static void write(FileChannel target, ByteBuffer source) throws IOException {
+        source.flip();
+        while (source.hasRemaining()) {
+            target.write(source);
+        }
+        source.clear();
+    }
+
+    private static long check(long seq, long productId, long quantity) {
+        return ((seq * 31 + productId) * 31 + quantity) ^ CHECK_SEED;
+    }
+
+    record LedgerRecord(long seq, long productId, long quantity) {
+    }
+}
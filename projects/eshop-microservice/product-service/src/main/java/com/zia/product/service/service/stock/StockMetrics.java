@@ -0,0 +1,33 @@
+package com.zia.product.service.service.stock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// aborted attempts (lost an optimistic race or timed out on a lock) and updates that gave up, per strategy
+@Component
+public class StockMetrics {
+
+    public static final String ABORTS = "product.stock.update.aborts";
+    public static final String FAILURES = "product.stock.update.failures";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public void abort(StockUpdateStrategy strategy) {
+        counter(ABORTS, strategy).increment();
+    }
+
+    public void failure(StockUpdateStrategy strategy) {
+        counter(FAILURES, strategy).increment();
+    }
+
+    public double aborts(StockUpdateStrategy strategy) {
+        return counter(ABORTS, strategy).count();
+    }
+
+    private Counter counter(String name, StockUpdateStrategy strategy) {
+        return meterRegistry.counter(name, "strategy", strategy.name());
+    }
+}
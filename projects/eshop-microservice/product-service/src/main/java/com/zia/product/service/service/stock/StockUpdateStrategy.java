@@ -0,0 +1,13 @@
+package com.zia.product.service.service.stock;
+
+// how concurrent stock changes on the same product are serialized, set with product.stock.strategy
+public enum StockUpdateStrategy {
+    // conditional UPDATE ... WHERE quantity >= ?, the database serializes the writers
+    ATOMIC,
+    // read, check and write with @Version, retried with jitter when another writer got there first
+    OPTIMISTIC,
+    // SELECT ... FOR UPDATE, writers queue on the row lock
+    PESSIMISTIC,
+    // CAS on an in-memory counter, written to the database in batches shortly after, see LedgerStockUpdater
+    LEDGER
+}
@@ -0,0 +1,9 @@
+package com.zia.product.service.service.stock;
+
+public interface StockUpdater {
+
+    StockUpdateStrategy strategy();
+
+    // throws ProductServiceExeption with PRODUCT_NOT_FOUND or INSUFFICIENT_QUANTITY like before
+    void reduceQuantity(Long productId, Long quantity);
+}
@@ -0,0 +1,188 @@
+package com.zia.product.service.stream;
+
+import com.zia.product.service.dto.ProductResponse;
+import com.zia.product.service.dto.StockLevelResponse;
+import com.zia.product.service.event.StockChangedEvent;
+import com.zia.product.service.exeption.ProductServiceExeption;
+import com.zia.product.service.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes stock levels to SSE subscribers instead of having them poll GET /api/products/{id}.
+ * Changes only mark products dirty; every interval the dirty products that somebody follows are read
+ * with one IN query and fanned out, so a burst of orders on one product costs one read per interval.
+ * Subscribers and products per subscriber are capped, and each subscriber buffers at most one level
+ * per product, which bounds the memory.
+ * A client that stops reading blocks its send; after send-timeout it is dropped and its sender thread
+ * is replaced until the blocked write gives up, so a few stalled clients can't hold up everybody else.
+ */
+@Component
+public class StockStreamDispatcher {
+
+    private static final int QUERY_BATCH_SIZE = 500;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${product.stream.max-subscribers:1000}")
+    private int maxSubscribers;
+
+    @Value("${product.stream.max-products-per-subscriber:100}")
+    private int maxProductsPerSubscriber;
+
+    @Value("${product.stream.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${product.stream.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${product.stream.send-timeout:10s}")
+    private Duration sendTimeout;
+
+    private final Set<StockSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Map<Long, Set<StockSubscriber>> subscribersByProduct = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyProductIds = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolExecutor sender;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        sender = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "stock-stream-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        subscribers.forEach(subscriber -> subscriber.emitter().complete());
+        sender.shutdownNow();
+    }
+
+    public SseEmitter subscribe(Collection<Long> productIds) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(productIds);
+        if (uniqueIds.isEmpty() || uniqueIds.size() > maxProductsPerSubscriber) {
+            throw new ProductServiceExeption("Follow between 1 and " + maxProductsPerSubscriber + " products per stream", "TOO_MANY_IDS");
+        }
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new ProductServiceExeption("Too many stock stream subscribers, try again later", "TOO_MANY_SUBSCRIBERS");
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        StockSubscriber subscriber = new StockSubscriber(emitter, uniqueIds, this::removeSenderThread);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(ex -> unsubscribe(subscriber));
+        subscribers.add(subscriber);
+        for (Long productId : uniqueIds) {
+            subscribersByProduct.computeIfAbsent(productId, ignored -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        // current levels first, then only changes
+        for (ProductResponse productResponse : productRepository.findResponsesByIds(uniqueIds)) {
+            subscriber.offer(new StockLevelResponse(productResponse.getProductId(), productResponse.getQuantity()), sender);
+        }
+        return emitter;
+    }
+
+    private void unsubscribe(StockSubscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        subscriber.close();
+        for (Long productId : subscriber.productIds()) {
+            subscribersByProduct.computeIfPresent(productId, (ignored, followers) -> {
+                followers.remove(subscriber);
+                return followers.isEmpty() ? null : followers;
+            });
+        }
+    }
+
+    // after commit, so subscribers never see a level that was rolled back
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        for (Long productId : event.getProductIds()) {
+            if (subscribersByProduct.containsKey(productId)) {
+                dirtyProductIds.add(productId);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${product.stream.interval:200ms}")
+    public void publish() {
+        if (dirtyProductIds.isEmpty()) {
+            return;
+        }
+        List<Long> productIds = new ArrayList<>();
+        for (Iterator<Long> iterator = dirtyProductIds.iterator(); iterator.hasNext(); ) {
+            productIds.add(iterator.next());
+            iterator.remove();
+        }
+        for (int from = 0; from < productIds.size(); from += QUERY_BATCH_SIZE) {
+            List<Long> chunk = productIds.subList(from, Math.min(from + QUERY_BATCH_SIZE, productIds.size()));
+            for (ProductResponse productResponse : productRepository.findResponsesByIds(chunk)) {
+                Set<StockSubscriber> followers = subscribersByProduct.get(productResponse.getProductId());
+                if (followers != null) {
+                    StockLevelResponse stockLevel = new StockLevelResponse(productResponse.getProductId(), productResponse.getQuantity());
+                    followers.forEach(subscriber -> subscriber.offer(stockLevel, sender));
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${product.stream.heartbeat-interval:15s}")
+    public void heartbeat() {
+        subscribers.forEach(subscriber -> subscriber.heartbeat(sender));
+    }
+
+    // never touches the emitter: completing it would wait for the blocked send
+    @Scheduled(fixedDelayString = "${product.stream.send-timeout:10s}")
+    public void dropStalledSubscribers() {
+        long timeoutNanos = sendTimeout.toNanos();
+        for (StockSubscriber subscriber : subscribers) {
+            if (subscriber.abandonIfStalled(timeoutNanos)) {
+                unsubscribe(subscriber);
+                addSenderThread();
+            }
+        }
+    }
+
+    // the pool grows by one per blocked send and shrinks again when that send returns
+    private synchronized void addSenderThread() {
+        sender.setMaximumPoolSize(sender.getMaximumPoolSize() + 1);
+        sender.setCorePoolSize(sender.getCorePoolSize() + 1);
+    }
+
+    private synchronized void removeSenderThread() {
+        sender.setCorePoolSize(sender.getCorePoolSize() - 1);
+        sender.setMaximumPoolSize(sender.getMaximumPoolSize() - 1);
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+}
@@ -0,0 +1,139 @@
+package com.zia.product.service.stream;
+
+import com.zia.product.service.dto.StockLevelResponse;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One SSE connection. Updates wait in a map keyed by product, so a subscriber that can't keep up
+ * only ever holds the latest level of each product it follows, and at most one send task runs for it.
+ * A heartbeat is a flag on the same task, so a stuck client never collects more than one.
+ */
+class StockSubscriber {
+
+    private final SseEmitter emitter;
+    private final Set<Long> productIds;
+    private final Map<Long, StockLevelResponse> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+    private final Runnable stalledSendReturned;
+    private volatile boolean closed;
+
+    // System.nanoTime() when the send in flight started, 0 when there is none; guarded by this
+    private long sendStartedNanos;
+    private boolean abandoned;
+
+    StockSubscriber(SseEmitter emitter, Set<Long> productIds) {
+        this(emitter, productIds, () -> { });
+    }
+
+    // stalledSendReturned runs on the sender thread once a send given up by abandonIfStalled returns
+    StockSubscriber(SseEmitter emitter, Set<Long> productIds, Runnable stalledSendReturned) {
+        this.emitter = emitter;
+        this.productIds = productIds;
+        this.stalledSendReturned = stalledSendReturned;
+    }
+
+    SseEmitter emitter() {
+        return emitter;
+    }
+
+    Set<Long> productIds() {
+        return productIds;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void close() {
+        closed = true;
+    }
+
+    // latest value wins, an older level still waiting is replaced
+    void offer(StockLevelResponse stockLevel, Executor executor) {
+        if (closed) {
+            return;
+        }
+        pending.put(stockLevel.getProductId(), stockLevel);
+        schedule(executor);
+    }
+
+    private void schedule(Executor executor) {
+        if (sending.compareAndSet(false, true)) {
+            executor.execute(() -> drain(executor));
+        }
+    }
+
+    // finds connections that died without telling us, and keeps proxies from closing idle ones
+    void heartbeat(Executor executor) {
+        if (closed) {
+            return;
+        }
+        heartbeatDue.set(true);
+        schedule(executor);
+    }
+
+    private void drain(Executor executor) {
+        try {
+            if (heartbeatDue.getAndSet(false) && !closed) {
+                send(SseEmitter.event().comment("keep-alive"));
+            }
+            Iterator<Map.Entry<Long, StockLevelResponse>> iterator = pending.entrySet().iterator();
+            while (iterator.hasNext() && !closed) {
+                Map.Entry<Long, StockLevelResponse> entry = iterator.next();
+                // removed only if not replaced meanwhile, a newer level stays for the next round
+                pending.remove(entry.getKey(), entry.getValue());
+                send(SseEmitter.event().name("stock").data(entry.getValue()));
+            }
+        } catch (IOException | IllegalStateException ex) {
+            // client went away, the emitter callbacks unregister us
+            closed = true;
+            emitter.completeWithError(ex);
+        } finally {
+            sending.set(false);
+        }
+        // an offer that came in while we were finishing found sending still set
+        if (!closed && (!pending.isEmpty() || heartbeatDue.get())) {
+            schedule(executor);
+        }
+    }
+
+    private void send(SseEmitter.SseEventBuilder event) throws IOException {
+        synchronized (this) {
+            sendStartedNanos = System.nanoTime();
+        }
+        try {
+            emitter.send(event);
+        } finally {
+            if (sendFinished()) {
+                stalledSendReturned.run();
+            }
+        }
+    }
+
+    private synchronized boolean sendFinished() {
+        sendStartedNanos = 0;
+        boolean wasAbandoned = abandoned;
+        abandoned = false;
+        return wasAbandoned;
+    }
+
+    // gives up on a send blocked for longer than timeoutNanos; true once per stuck send
+    synchronized boolean abandonIfStalled(long timeoutNanos) {
+        if (sendStartedNanos == 0 || abandoned || System.nanoTime() - sendStartedNanos < timeoutNanos) {
+            return false;
+        }
+        // the write itself only ends with the connector's write timeout, nothing more is sent after it
+        abandoned = true;
+        closed = true;
+        return true;
+    }
+}
@@ -0,0 +1,166 @@
+package com.zia.product.service.warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo;
+import com.zia.product.service.dto.ProductBatchResponse;
+import com.zia.product.service.dto.ProductPage;
+import com.zia.product.service.dto.ProductResponse;
+import com.zia.product.service.repository.ProductRepository;
+import com.zia.product.service.repository.StockReservationRepository;
+import com.zia.product.service.service.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Warms a new instance before it takes traffic.
+ * The instance registers with Eureka as STARTING (eureka.instance.initial-status), then this
+ * 1. loads the most reserved products of the last lookback plus product.warmup.product-ids into the product cache,
+ * 2. runs the read paths and their JSON serialization a few hundred times, so Hibernate, Jackson and the JIT are warm,
+ * 3. switches the instance to UP.
+ * Until then the startupWarmup health contributor reports OUT_OF_SERVICE.
+ */
+@Component
+public class StartupWarmup implements HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private static final int PRELOAD_BATCH_SIZE = 500;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ObjectProvider<ApplicationInfoManager> applicationInfoManager;
+
+    @Value("${product.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${product.warmup.top-n:500}")
+    private int topN;
+
+    @Value("${product.warmup.lookback:7d}")
+    private Duration lookback;
+
+    @Value("${product.warmup.product-ids:}")
+    private List<Long> configuredProductIds;
+
+    @Value("${product.warmup.iterations:200}")
+    private int iterations;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private volatile boolean done;
+
+    @Autowired
+    void setTransactionManager(PlatformTransactionManager transactionManager) {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    // after the search index and the other startup listeners
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        try {
+            if (enabled) {
+                List<Long> productIds = productsToPreload();
+                preload(productIds);
+                exerciseReadPaths(productIds);
+                log.info("Warm-up preloaded {} products and ran {} read iterations in {} ms",
+                        productIds.size(), iterations, System.currentTimeMillis() - start);
+            }
+        } catch (RuntimeException ex) {
+            // a failed warm-up only costs latency, it must not keep the instance out of service
+            log.warn("Warm-up failed, going UP cold", ex);
+        } finally {
+            done = true;
+            applicationInfoManager.ifAvailable(manager -> manager.setInstanceStatus(InstanceInfo.InstanceStatus.UP));
+        }
+    }
+
+    @Override
+    public Health health() {
+        return done ? Health.up().build() : Health.outOfService().withDetail("reason", "warming up").build();
+    }
+
+    // configured ids first, then the most reserved products, which is where orders land
+    private List<Long> productsToPreload() {
+        Set<Long> productIds = new LinkedHashSet<>(configuredProductIds);
+        if (topN > 0) {
+            productIds.addAll(reservationRepository.findMostReservedProductIds(Instant.now().minus(lookback), Limit.of(topN)));
+        }
+        return new ArrayList<>(productIds);
+    }
+
+    private void preload(List<Long> productIds) {
+        // getProductsByIds puts every product it loads into the product cache
+        for (int from = 0; from < productIds.size(); from += PRELOAD_BATCH_SIZE) {
+            productService.getProductsByIds(productIds.subList(from, Math.min(from + PRELOAD_BATCH_SIZE, productIds.size())));
+        }
+    }
+
+    // read-only calls through the service proxies, so transactions, caching and queries all get compiled
+    private void exerciseReadPaths(List<Long> productIds) {
+        List<Long> sample = productIds.subList(0, Math.min(productIds.size(), 20));
+        for (int i = 0; i < iterations; i++) {
+            ProductPage page = productService.getProducts(null, 50);
+            ProductPage filtered = productService.filterProducts(null, null, null, true, null, 50);
+            List<ProductResponse> found = productService.searchProducts("product", 20);
+            ProductBatchResponse batch = productService.getProductsByIds(sample);
+            for (Long productId : sample) {
+                serialize(productService.getProductById(productId));
+            }
+            // the two calls above are cache hits after the first round, the by-id queries need their own
+            if (!sample.isEmpty()) {
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    productRepository.findResponsesByIds(sample);
+                    sample.forEach(productRepository::findResponseById);
+                });
+            }
+            serialize(page);
+            serialize(filtered);
+            serialize(found);
+            serialize(batch);
+        }
+    }
+
+    private void serialize(Object value) {
+        try {
+            objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.zia.product.service.benchmark;
+
+import com.zia.product.service.ProductServiceApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// starts product-service without the web server for benchmarks that need the database.
+// Uses the H2 "test" profile, point it at MySQL with -Dspring.datasource.url=... (plus username/password)
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... args) {
+        return new SpringApplicationBuilder(ProductServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run(args);
+    }
+}
@@ -0,0 +1,104 @@
+package com.zia.product.service.benchmark;
+
+import com.zia.product.service.dto.ProductPage;
+import com.zia.product.service.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the filtered product listing on a catalog of 1M rows.
+ * ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark.args="ProductFilterBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductFilterBenchmark {
+
+    private static final int CATEGORIES = 100;
+    private static final int INSERT_BATCH = 10_000;
+
+    @Param({"1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private long deepCursor;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        productService = context.getBean(ProductService.class);
+        seed(context.getBean(JdbcTemplate.class));
+        deepCursor = rows * 9L / 10;
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ProductPage firstPage() {
+        return productService.filterProducts(null, null, null, null, null, 50);
+    }
+
+    @Benchmark
+    public ProductPage deepPage() {
+        // keyset seek, costs the same as the first page
+        return productService.filterProducts(null, null, null, null, deepCursor, 50);
+    }
+
+    @Benchmark
+    public ProductPage category() {
+        return productService.filterProducts(42L, null, null, null, null, 50);
+    }
+
+    @Benchmark
+    public ProductPage categoryPriceRange() {
+        return productService.filterProducts(42L, 20.0, 40.0, null, null, 50);
+    }
+
+    @Benchmark
+    public ProductPage categoryPriceRangeInStock() {
+        return productService.filterProducts(42L, 20.0, 40.0, true, deepCursor, 50);
+    }
+
+    @Benchmark
+    public ProductPage priceRange() {
+        return productService.filterProducts(null, 99.0, 99.5, null, null, 50);
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        String sql = "insert into products (product_id, name, price, quantity, category_id, version) values (?, ?, ?, ?, ?, 0)";
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (long id = 1; id <= rows; id++) {
+            batch.add(new Object[]{id, "Product " + id, (id * 7919 % 10_000) / 100.0, id % 10, id % CATEGORIES});
+            if (batch.size() == INSERT_BATCH) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.zia.product.service.benchmark;
+
+import com.zia.product.service.dto.ProductResponse;
+import com.zia.product.service.entity.Product;
+import com.zia.product.service.mapper.ProductMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.beans.BeanUtils.copyProperties;
+
+/**
+ * Entity to DTO mapping: reflective BeanUtils.copyProperties against ProductMapper.
+ * Run with the gc profiler to see the allocation rate next to the time:
+ * ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark.args="ProductMapperBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductMapperBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    private Product product;
+    private List<Product> products;
+
+    @Setup
+    public void setUp() {
+        product = product(1L);
+        products = new ArrayList<>(ROWS);
+        for (long i = 1; i <= ROWS; i++) {
+            products.add(product(i));
+        }
+    }
+
+    @Benchmark
+    public ProductResponse singleBeanUtils() {
+        ProductResponse productResponse = new ProductResponse();
+        copyProperties(product, productResponse);
+        return productResponse;
+    }
+
+    @Benchmark
+    public ProductResponse singleMapper() {
+        return ProductMapper.toResponse(product);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<ProductResponse> listBeanUtils() {
+        // same code getAllProducts used before the mapper
+        return products.stream().map(product -> {
+            ProductResponse productResponse = new ProductResponse();
+            copyProperties(product, productResponse);
+            return productResponse;
+        }).toList();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<ProductResponse> listMapper() {
+        return ProductMapper.toResponses(products);
+    }
+
+    private static Product product(long id) {
+        Product product = new Product();
+        product.setProductId(id);
+        product.setName("Product " + id);
+        product.setPrice(10.0 + id % 100);
+        product.setQuantity(id % 50);
+        product.setCategoryId(id % 20);
+        product.setVersion(0L);
+        return product;
+    }
+}
@@ -0,0 +1,115 @@
+package com.zia.product.service.benchmark;
+
+import com.zia.product.service.entity.Product;
+import com.zia.product.service.exeption.ProductServiceExeption;
+import com.zia.product.service.repository.ProductRepository;
+import com.zia.product.service.service.ProductService;
+import com.zia.product.service.service.stock.StockMetrics;
+import com.zia.product.service.service.stock.StockUpdateStrategy;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and abort rate of the stock update strategies on one hot product.
+ * "aborted" counts reductions that gave up (CONCURRENT_UPDATE), the abort rate per attempt
+ * (lost optimistic races, lock timeouts) is printed after every iteration.
+ * Runs every strategy at 1 to 32 threads:
+ * ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.zia.product.service.benchmark.StockContentionBenchmark -Dbenchmark.args=
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+public class StockContentionBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32};
+
+    @Param({"ATOMIC", "OPTIMISTIC", "PESSIMISTIC", "LEDGER"})
+    private StockUpdateStrategy strategy;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private StockMetrics stockMetrics;
+    private Long hotProductId;
+    private double abortsBefore;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+        public long succeeded;
+        public long aborted;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            succeeded = 0;
+            aborted = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("--product.stock.strategy=" + strategy);
+        productService = context.getBean(ProductService.class);
+        stockMetrics = context.getBean(StockMetrics.class);
+        Product product = new Product();
+        product.setName("Flash sale item");
+        product.setPrice(9.99);
+        // never runs out during the benchmark
+        product.setQuantity(Long.MAX_VALUE / 2);
+        hotProductId = context.getBean(ProductRepository.class).save(product).getProductId();
+    }
+
+    @Setup(Level.Iteration)
+    public void markAborts() {
+        abortsBefore = stockMetrics.aborts(strategy);
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportAborts() {
+        System.out.printf("%n%s: %.0f aborted attempts in this iteration%n", strategy, stockMetrics.aborts(strategy) - abortsBefore);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void reduceQuantity(Outcomes outcomes) {
+        try {
+            productService.reduceQuantity(hotProductId, 1L);
+            outcomes.succeeded++;
+        } catch (ProductServiceExeption e) {
+            outcomes.aborted++;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            new Runner(new OptionsBuilder()
+                    .include(StockContentionBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.zia.product.service.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for EvictionCheckedCache
+ * A read that missed before a write's eviction must not put its old value back
+ */
+class EvictionCheckedCacheTest {
+
+    private final EvictionCheckedCache cache = new EvictionCheckedCache(new ConcurrentMapCache("products"));
+
+    /**
+     * Test 1: Miss, load, put without anything in between is cached
+     */
+    @Test
+    void testPut_AfterMiss_ShouldCache() {
+        assertNull(cache.get(1L));
+        cache.put(1L, "stock 10");
+
+        assertEquals("stock 10", cache.get(1L, String.class));
+    }
+
+    /**
+     * Test 2: An eviction between the miss and the put drops the put
+     */
+    @Test
+    void testPut_EvictedSinceMiss_ShouldBeDropped() {
+        assertNull(cache.get(1L));
+        // a write commits and evicts while the read is still loading
+        cache.evict(1L);
+        cache.put(1L, "stock 10");
+
+        assertNull(cache.get(1L));
+        // the next read loads the new value and caches it
+        cache.put(1L, "stock 9");
+        assertEquals("stock 9", cache.get(1L, String.class));
+    }
+
+    /**
+     * Test 3: A put without a miss, like @CachePut of a new product, always lands
+     */
+    @Test
+    void testPut_WithoutMiss_ShouldCache() {
+        cache.evict(2L);
+        cache.put(2L, "new product");
+
+        assertEquals("new product", cache.get(2L, String.class));
+    }
+
+    /**
+     * Test 4: Clearing the cache drops every pending put
+     */
+    @Test
+    void testPut_ClearedSinceMiss_ShouldBeDropped() {
+        assertNull(cache.get(3L, String.class));
+        cache.clear();
+        cache.put(3L, "stock 10");
+
+        assertNull(cache.get(3L));
+    }
+}
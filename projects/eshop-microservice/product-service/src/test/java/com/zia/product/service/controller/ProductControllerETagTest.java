@@ -0,0 +1,95 @@
+package com.zia.product.service.controller;
+
+import com.zia.product.service.dto.ProductRequest;
+import com.zia.product.service.dto.ProductResponse;
+import com.zia.product.service.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests for the conditional GETs on ProductController
+ * A matching If-None-Match gets 304 without a body, any stock change gives a new ETag
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductControllerETagTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    /**
+     * Test 1: The ETag of a product is sent back and answered with 304 and an empty body
+     */
+    @Test
+    void testGetProductById_MatchingETag_ShouldReturnNotModified() throws Exception {
+        // ARRANGE
+        Long productId = addProduct(10L);
+        String eTag = mockMvc.perform(get("/api/products/{id}", productId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+
+        // ACT + ASSERT
+        mockMvc.perform(get("/api/products/{id}", productId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+    }
+
+    /**
+     * Test 2: After a stock change the old ETag no longer matches and the new body is sent
+     */
+    @Test
+    void testGetProductById_AfterReduceQuantity_ShouldReturnNewETag() throws Exception {
+        // ARRANGE
+        Long productId = addProduct(10L);
+        String eTag = mockMvc.perform(get("/api/products/{id}", productId))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // ACT
+        productService.reduceQuantity(productId, 1L);
+
+        // ASSERT
+        String newETag = mockMvc.perform(get("/api/products/{id}", productId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity").value(9))
+                .andExpect(jsonPath("$.version").doesNotExist())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(eTag, newETag);
+    }
+
+    /**
+     * Test 3: Keyset pages are conditional too
+     */
+    @Test
+    void testGetProducts_MatchingPageETag_ShouldReturnNotModified() throws Exception {
+        // ARRANGE
+        Long productId = addProduct(5L);
+        String eTag = mockMvc.perform(get("/api/products/page").param("after", String.valueOf(productId - 1)).param("size", "1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // ACT + ASSERT
+        mockMvc.perform(get("/api/products/page").param("after", String.valueOf(productId - 1)).param("size", "1")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    private Long addProduct(long quantity) {
+        ProductResponse productResponse = productService.addProduct(new ProductRequest("ETag item", null, 2.5, quantity, null));
+        return productResponse.getProductId();
+    }
+}
@@ -0,0 +1,99 @@
+package com.zia.product.service.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zia.product.service.dto.ProductRequest;
+import com.zia.product.service.dto.ProductResponse;
+import com.zia.product.service.exeption.ProductServiceExeption;
+import com.zia.product.service.repository.ProductRepository;
+import com.zia.product.service.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ProductExporter
+ * Exports the test database and checks the CSV escaping and the NDJSON lines
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductExporterTest {
+
+    @Autowired
+    private ProductExporter productExporter;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Test 1: CSV has a header and one line per product, fields with separators or quotes are quoted
+     */
+    @Test
+    void testExport_Csv_ShouldQuoteSpecialCharacters() throws Exception {
+        // ARRANGE
+        ProductResponse product = productService.addProduct(
+                new ProductRequest("Cable, \"braided\"", "2m long\nUSB-C", 4.5, 12L, 7L));
+
+        // ACT
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = productExporter.export(ExportFormat.CSV, out);
+
+        // ASSERT
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertTrue(csv.startsWith("productId,name,price,quantity,categoryId,description\r\n"));
+        assertTrue(csv.contains(product.getProductId() + ",\"Cable, \"\"braided\"\"\",4.5,12,7,\"2m long\nUSB-C\"\r\n"));
+        assertEquals(productRepository.count(), rows);
+    }
+
+    /**
+     * Test 2: NDJSON has one object per line, products without a description export it as null
+     */
+    @Test
+    void testExport_Ndjson_ShouldWriteOneObjectPerLine() throws Exception {
+        // ARRANGE
+        ProductResponse product = productService.addProduct(new ProductRequest("Mouse pad", null, 3.0, 40L, null));
+
+        // ACT
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = productExporter.export(ExportFormat.NDJSON, out);
+
+        // ASSERT
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(rows, lines.size());
+        JsonNode exported = null;
+        for (String line : lines) {
+            JsonNode node = objectMapper.readTree(line);
+            if (node.get("productId").asLong() == product.getProductId()) {
+                exported = node;
+            }
+        }
+        assertNotNull(exported);
+        assertEquals("Mouse pad", exported.get("name").asText());
+        assertEquals(40L, exported.get("quantity").asLong());
+        assertTrue(exported.get("categoryId").isNull());
+        assertTrue(exported.get("description").isNull());
+    }
+
+    /**
+     * Test 3: Unknown formats are rejected
+     */
+    @Test
+    void testExportFormat_Unknown_ShouldThrowInvalidFormat() {
+        assertEquals(ExportFormat.CSV, ExportFormat.from("csv"));
+        ProductServiceExeption ex = assertThrows(ProductServiceExeption.class, () -> ExportFormat.from("xml"));
+        assertEquals("INVALID_EXPORT_FORMAT", ex.getStatusCode());
+    }
+}
@@ -0,0 +1,91 @@
+package com.zia.product.service.hotspot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for HeavyHitters and CountMinSketch
+ * A few hot keys hidden in a long tail of cold ones must come out on top
+ */
+class HeavyHittersTest {
+
+    /**
+     * Test 1: The hot keys are found and ranked, their estimates never undercount
+     */
+    @Test
+    void testTop_SkewedStream_ShouldFindHotKeys() {
+        HeavyHitters heavyHitters = new HeavyHitters(5, 1024, 4);
+        Random random = new Random(42);
+        // keys 1..5 get 5000, 4000, ... 1000 hits, 100000 cold keys one or two each
+        for (int round = 0; round < 5000; round++) {
+            for (long key = 1; key <= 5; key++) {
+                if (round < (6 - key) * 1000) {
+                    heavyHitters.add(key);
+                }
+            }
+            for (int i = 0; i < 30; i++) {
+                heavyHitters.add(1000 + random.nextInt(100_000));
+            }
+        }
+
+        List<Map.Entry<Long, Long>> top = heavyHitters.top();
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), top.stream().map(Map.Entry::getKey).toList());
+        for (Map.Entry<Long, Long> entry : top) {
+            assertTrue(entry.getValue() >= (6 - entry.getKey()) * 1000);
+        }
+    }
+
+    /**
+     * Test 2: Decay lets a key that went quiet drop out for a new hot key
+     */
+    @Test
+    void testDecay_ShouldLetNewHotKeysIn() {
+        HeavyHitters heavyHitters = new HeavyHitters(1, 256, 4);
+        for (int i = 0; i < 1000; i++) {
+            heavyHitters.add(7L);
+        }
+        for (int i = 0; i < 10; i++) {
+            heavyHitters.decay();
+        }
+        for (int i = 0; i < 100; i++) {
+            heavyHitters.add(8L);
+        }
+
+        assertEquals(8L, heavyHitters.top().get(0).getKey());
+    }
+
+    /**
+     * Test 3: Concurrent updates are all counted by the sketch
+     */
+    @Test
+    void testAdd_Concurrent_ShouldNotLoseCounts() throws Exception {
+        HeavyHitters heavyHitters = new HeavyHitters(3, 512, 4);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    heavyHitters.add(99L);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(80_000L, heavyHitters.estimate(99L));
+        assertEquals(99L, heavyHitters.top().get(0).getKey());
+    }
+}
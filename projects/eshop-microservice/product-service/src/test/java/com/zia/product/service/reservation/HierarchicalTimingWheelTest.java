@@ -0,0 +1,90 @@
+package com.zia.product.service.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for HierarchicalTimingWheel
+ * Time is passed in explicitly, so nothing here sleeps
+ */
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK = 10;
+    private static final int WHEEL_SIZE = 8;
+
+    /**
+     * Test 1: A timer fires on the tick that reaches its deadline, not before
+     */
+    @Test
+    void testAdvance_ShouldFireAtDeadline() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, WHEEL_SIZE, 0);
+        List<String> expired = new ArrayList<>();
+        assertTrue(wheel.add("a", 35));
+
+        wheel.advance(39, expired::add);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(40, expired::add);
+        assertEquals(List.of("a"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * Test 2: Timers beyond one revolution cascade down through the overflow wheels
+     */
+    @Test
+    void testAdvance_FarDeadlines_ShouldCascade() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(TICK, WHEEL_SIZE, 0);
+        List<Long> expired = new ArrayList<>();
+        // one level covers 80ms, the second 640ms, the third 5120ms
+        long[] deadlines = {15, 79, 80, 500, 639, 641, 4000};
+        for (long deadline : deadlines) {
+            assertTrue(wheel.add(deadline, deadline));
+        }
+
+        for (long now = 0; now <= 5000; now += TICK) {
+            long tickTime = now;
+            wheel.advance(now, deadline -> {
+                // never early, at most one tick late
+                assertTrue(deadline <= tickTime, "fired early: " + deadline + " at " + tickTime);
+                assertTrue(tickTime - deadline < TICK, "fired late: " + deadline + " at " + tickTime);
+                expired.add(deadline);
+            });
+        }
+        assertEquals(List.of(15L, 79L, 80L, 500L, 639L, 641L, 4000L), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * Test 3: A deadline that has already been reached is not scheduled, the caller fires it itself
+     */
+    @Test
+    void testAdd_DueDeadline_ShouldReturnFalse() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, WHEEL_SIZE, 100);
+        assertFalse(wheel.add("overdue", 50));
+        assertFalse(wheel.add("now", 100));
+        assertTrue(wheel.add("next tick", 101));
+        assertEquals(1, wheel.size());
+    }
+
+    /**
+     * Test 4: A big jump in time fires everything that is due in one call
+     */
+    @Test
+    void testAdvance_LargeJump_ShouldFireEverythingDue() {
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(TICK, WHEEL_SIZE, 0);
+        for (int i = 1; i <= 1000; i++) {
+            wheel.add(i, i * 7L);
+        }
+        List<Integer> expired = new ArrayList<>();
+
+        wheel.advance(3500, expired::add);
+
+        assertEquals(500, expired.size());
+        assertEquals(500, wheel.size());
+    }
+}
@@ -0,0 +1,67 @@
+package com.zia.product.service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit Tests for ProductSearchIndex
+ * Tests tokenizing, ranking and keeping the index up to date
+ */
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex productSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        productSearchIndex = new ProductSearchIndex();
+        productSearchIndex.index(1L, "Wireless Mouse", "Ergonomic mouse with USB receiver");
+        productSearchIndex.index(2L, "USB-C Cable", "Braided cable, 2m");
+        productSearchIndex.index(3L, "Mechanical Keyboard", "Wireless keyboard with brown switches");
+    }
+
+    /**
+     * Test 1: A match in the name ranks above a match in the description
+     */
+    @Test
+    void testSearch_NameMatch_ShouldRankFirst() {
+        List<Long> result = productSearchIndex.search("wireless", 10);
+
+        assertEquals(List.of(1L, 3L), result);
+    }
+
+    /**
+     * Test 2: Documents matching more query terms rank higher, case and punctuation are ignored
+     */
+    @Test
+    void testSearch_MultipleTerms_ShouldRankByRelevance() {
+        List<Long> result = productSearchIndex.search("USB cable!", 10);
+
+        assertEquals(2L, result.get(0));
+        assertTrue(result.contains(1L));
+    }
+
+    /**
+     * Test 3: Re-indexing a product replaces its old terms
+     */
+    @Test
+    void testIndex_SameProductTwice_ShouldReplaceOldTerms() {
+        productSearchIndex.index(2L, "Lightning Cable", null);
+
+        assertTrue(productSearchIndex.search("braided", 10).isEmpty());
+        assertEquals(List.of(2L), productSearchIndex.search("lightning", 10));
+        assertEquals(3, productSearchIndex.size());
+    }
+
+    /**
+     * Test 4: Limit keeps only the best matches, unknown words give no results
+     */
+    @Test
+    void testSearch_LimitAndUnknownTerm() {
+        assertEquals(1, productSearchIndex.search("wireless", 1).size());
+        assertTrue(productSearchIndex.search("monitor", 10).isEmpty());
+    }
+}
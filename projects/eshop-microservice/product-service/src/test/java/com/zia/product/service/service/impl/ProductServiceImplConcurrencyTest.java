@@ -0,0 +1,179 @@
+package com.zia.product.service.service.impl;
+
+import com.zia.product.service.entity.Product;
+import com.zia.product.service.exeption.ProductServiceExeption;
+import com.zia.product.service.repository.ProductRepository;
+import com.zia.product.service.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrency Tests for ProductServiceImpl.reduceQuantity
+ * Many threads hammer one product (one SKU) at the same time, like during a flash sale.
+ * The old read-modify-write path runs against the same setup so the throughput can be compared.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductServiceImplConcurrencyTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductServiceImplConcurrencyTest.class);
+
+    private static final int THREADS = 16;
+    private static final int ORDERS_PER_THREAD = 50;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Test 1: Every single-unit order succeeds and no update is lost
+     */
+    @Test
+    void testReduceQuantity_ConcurrentOrders_ShouldNotLoseUpdates() throws Exception {
+        // ARRANGE - exactly enough stock for every order
+        Long productId = saveProduct(THREADS * ORDERS_PER_THREAD);
+
+        // ACT
+        Result result = runConcurrently(() -> productService.reduceQuantity(productId, 1L));
+
+        // ASSERT
+        assertEquals(THREADS * ORDERS_PER_THREAD, result.succeeded);
+        assertEquals(0, result.failed);
+        assertEquals(0L, productRepository.findById(productId).orElseThrow().getQuantity());
+        log.info("atomic update: {} orders in {} ms ({} orders/s)",
+                result.succeeded, result.elapsedMillis, Math.round(result.throughput()));
+    }
+
+    /**
+     * Test 2: When orders outnumber the stock, exactly the available stock is sold
+     * and the rest get INSUFFICIENT_QUANTITY
+     */
+    @Test
+    void testReduceQuantity_Oversold_ShouldStopAtZero() throws Exception {
+        // ARRANGE - stock for only a fraction of the orders
+        int stock = 100;
+        Long productId = saveProduct(stock);
+        AtomicInteger insufficient = new AtomicInteger();
+
+        // ACT
+        Result result = runConcurrently(() -> {
+            try {
+                productService.reduceQuantity(productId, 1L);
+            } catch (ProductServiceExeption ex) {
+                assertEquals("INSUFFICIENT_QUANTITY", ex.getStatusCode());
+                insufficient.incrementAndGet();
+            }
+        });
+
+        // ASSERT
+        assertEquals(THREADS * ORDERS_PER_THREAD - stock, insufficient.get());
+        assertEquals(0L, productRepository.findById(productId).orElseThrow().getQuantity());
+        assertEquals(0, result.failed);
+    }
+
+    /**
+     * Test 3: Unknown product still reports PRODUCT_NOT_FOUND
+     */
+    @Test
+    void testReduceQuantity_UnknownProduct_ShouldThrowNotFound() {
+        ProductServiceExeption ex = assertThrows(ProductServiceExeption.class,
+                () -> productService.reduceQuantity(-1L, 1L));
+        assertEquals("PRODUCT_NOT_FOUND", ex.getStatusCode());
+    }
+
+    /**
+     * Test 4: Same load on the previous findById + save path, for comparison.
+     * Nothing is asserted about the final stock because lost updates are expected here.
+     */
+    @Test
+    void testReadModifyWrite_ConcurrentOrders_ForComparison() throws Exception {
+        // ARRANGE
+        int stock = THREADS * ORDERS_PER_THREAD;
+        Long productId = saveProduct(stock);
+
+        // ACT - the way reduceQuantity used to work
+        Result result = runConcurrently(() -> transactionTemplate.executeWithoutResult(status -> {
+            Product product = productRepository.findById(productId).orElseThrow();
+            if (product.getQuantity() < 1) {
+                throw new ProductServiceExeption("Insufficient quantity", "INSUFFICIENT_QUANTITY");
+            }
+            product.setQuantity(product.getQuantity() - 1);
+            productRepository.save(product);
+        }));
+
+        // REPORT
+        long remaining = productRepository.findById(productId).orElseThrow().getQuantity();
+        long lostUpdates = remaining - (stock - result.succeeded);
+        log.info("read-modify-write: {} orders in {} ms ({} orders/s), {} failed, {} lost updates",
+                result.succeeded, result.elapsedMillis, Math.round(result.throughput()), result.failed, lostUpdates);
+        assertEquals(THREADS * ORDERS_PER_THREAD, result.succeeded + result.failed);
+    }
+
+    private Long saveProduct(long quantity) {
+        Product product = new Product();
+        product.setName("Flash sale item");
+        product.setPrice(9.99);
+        product.setQuantity(quantity);
+        return productRepository.save(product).getProductId();
+    }
+
+    // runs ORDERS_PER_THREAD calls on each of THREADS threads, all starting at the same moment
+    private Result runConcurrently(Runnable order) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        List<Future<Void>> futures = new ArrayList<>();
+        Callable<Void> worker = () -> {
+            start.await();
+            for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                try {
+                    order.run();
+                    succeeded.incrementAndGet();
+                } catch (RuntimeException ex) {
+                    failed.incrementAndGet();
+                }
+            }
+            return null;
+        };
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(worker));
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<Void> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        executor.shutdown();
+        return new Result(succeeded.get(), failed.get(), elapsedMillis);
+    }
+
+    private record Result(int succeeded, int failed, long elapsedMillis) {
+        double throughput() {
+            return succeeded * 1000.0 / elapsedMillis;
+        }
+    }
+}
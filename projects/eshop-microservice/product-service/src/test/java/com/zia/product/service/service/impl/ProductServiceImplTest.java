@@ -0,0 +1,94 @@
+package com.zia.product.service.service.impl;
+
+import com.zia.product.service.dto.ProductQuantityRequest;
+import com.zia.product.service.entity.Product;
+import com.zia.product.service.exeption.ProductServiceExeption;
+import com.zia.product.service.repository.ProductRepository;
+import com.zia.product.service.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ProductServiceImpl.reduceQuantities
+ * A cart is reduced as a whole: either every line is taken or none is
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductServiceImplTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    /**
+     * Test 1: Every line has stock, every line is reduced and repeated lines are merged
+     */
+    @Test
+    void testReduceQuantities_AllInStock_ShouldReduceEveryLine() {
+        Long first = saveProduct(10);
+        Long second = saveProduct(5);
+
+        productService.reduceQuantities(List.of(
+                new ProductQuantityRequest(first, 2L),
+                new ProductQuantityRequest(second, 5L),
+                new ProductQuantityRequest(first, 3L)));
+
+        assertEquals(5L, quantity(first));
+        assertEquals(0L, quantity(second));
+    }
+
+    /**
+     * Test 2: One short line rolls back the lines that were already reduced
+     */
+    @Test
+    void testReduceQuantities_OneLineShort_ShouldRollBackEveryLine() {
+        Long first = saveProduct(10);
+        Long second = saveProduct(1);
+        Long third = saveProduct(10);
+
+        ProductServiceExeption ex = assertThrows(ProductServiceExeption.class, () -> productService.reduceQuantities(List.of(
+                new ProductQuantityRequest(first, 4L),
+                new ProductQuantityRequest(second, 2L),
+                new ProductQuantityRequest(third, 4L))));
+
+        assertEquals("INSUFFICIENT_QUANTITY", ex.getStatusCode());
+        assertEquals(10L, quantity(first));
+        assertEquals(1L, quantity(second));
+        assertEquals(10L, quantity(third));
+    }
+
+    /**
+     * Test 3: An unknown product fails the cart the same way
+     */
+    @Test
+    void testReduceQuantities_UnknownProduct_ShouldRollBackEveryLine() {
+        Long productId = saveProduct(10);
+
+        ProductServiceExeption ex = assertThrows(ProductServiceExeption.class, () -> productService.reduceQuantities(List.of(
+                new ProductQuantityRequest(productId, 4L),
+                new ProductQuantityRequest(Long.MAX_VALUE, 1L))));
+
+        assertEquals("PRODUCT_NOT_FOUND", ex.getStatusCode());
+        assertEquals(10L, quantity(productId));
+    }
+
+    private Long saveProduct(long quantity) {
+        Product product = new Product();
+        product.setName("Cart item");
+        product.setPrice(4.99);
+        product.setQuantity(quantity);
+        return productRepository.save(product).getProductId();
+    }
+
+    private long quantity(Long productId) {
+        return productRepository.findById(productId).orElseThrow().getQuantity();
+    }
+}
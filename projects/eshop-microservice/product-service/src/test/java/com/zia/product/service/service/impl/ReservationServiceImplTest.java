@@ -0,0 +1,169 @@
+package com.zia.product.service.service.impl;
+
+import com.zia.product.service.dto.ReservationRequest;
+import com.zia.product.service.dto.ReservationResponse;
+import com.zia.product.service.entity.Product;
+import com.zia.product.service.entity.ReservationStatus;
+import com.zia.product.service.entity.StockReservation;
+import com.zia.product.service.exeption.ProductServiceExeption;
+import com.zia.product.service.repository.ProductRepository;
+import com.zia.product.service.repository.StockReservationRepository;
+import com.zia.product.service.reservation.ReservationExpirer;
+import com.zia.product.service.service.ReservationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ReservationServiceImpl
+ * Reserved stock is taken right away and comes back on release or expiry, never twice
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ReservationServiceImplTest {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private ReservationExpirer reservationExpirer;
+
+    /**
+     * Test 1: Reserve takes the stock, confirm keeps it taken
+     */
+    @Test
+    void testReserveAndConfirm_ShouldKeepStockReduced() {
+        Long productId = saveProduct(10);
+
+        ReservationResponse reservation = reservationService.reserve(new ReservationRequest(productId, 3L, 60L, null));
+        ReservationResponse confirmed = reservationService.confirm(reservation.getReservationId());
+
+        assertEquals(ReservationStatus.CONFIRMED, confirmed.getStatus());
+        assertEquals(7L, quantity(productId));
+        // confirming twice is harmless, releasing afterwards is not allowed
+        assertEquals(ReservationStatus.CONFIRMED, reservationService.confirm(reservation.getReservationId()).getStatus());
+        ProductServiceExeption ex = assertThrows(ProductServiceExeption.class,
+                () -> reservationService.release(reservation.getReservationId()));
+        assertEquals("RESERVATION_NOT_PENDING", ex.getStatusCode());
+    }
+
+    /**
+     * Test 2: Release gives the stock back exactly once
+     */
+    @Test
+    void testRelease_ShouldReturnStockOnce() {
+        Long productId = saveProduct(10);
+        ReservationResponse reservation = reservationService.reserve(new ReservationRequest(productId, 4L, 60L, null));
+
+        reservationService.release(reservation.getReservationId());
+        reservationService.release(reservation.getReservationId());
+
+        assertEquals(10L, quantity(productId));
+        assertEquals(ReservationStatus.RELEASED, reservationService.getReservation(reservation.getReservationId()).getStatus());
+    }
+
+    /**
+     * Test 3: An unconfirmed reservation expires on its own and the stock comes back
+     */
+    @Test
+    void testReserve_NotConfirmed_ShouldExpire() throws InterruptedException {
+        Long productId = saveProduct(5);
+        ReservationResponse reservation = reservationService.reserve(new ReservationRequest(productId, 5L, 1L, null));
+        assertEquals(0L, quantity(productId));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (reservationService.getReservation(reservation.getReservationId()).getStatus() == ReservationStatus.PENDING
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertEquals(ReservationStatus.EXPIRED, reservationService.getReservation(reservation.getReservationId()).getStatus());
+        assertEquals(5L, quantity(productId));
+        ProductServiceExeption ex = assertThrows(ProductServiceExeption.class,
+                () -> reservationService.confirm(reservation.getReservationId()));
+        assertEquals("RESERVATION_NOT_PENDING", ex.getStatusCode());
+    }
+
+    /**
+     * Test 4: Not enough stock means no reservation
+     */
+    @Test
+    void testReserve_InsufficientStock_ShouldThrow() {
+        Long productId = saveProduct(1);
+        ProductServiceExeption ex = assertThrows(ProductServiceExeption.class,
+                () -> reservationService.reserve(new ReservationRequest(productId, 2L, 60L, null)));
+        assertEquals("INSUFFICIENT_QUANTITY", ex.getStatusCode());
+        assertEquals(1L, quantity(productId));
+    }
+
+    /**
+     * Test 5: A pending reservation no instance has a timer for is expired by the overdue sweep
+     */
+    @Test
+    void testSweep_OrphanedOverdueReservation_ShouldExpire() throws InterruptedException {
+        // stock already taken by an instance that died before its timer fired
+        Long productId = saveProduct(2);
+        StockReservation orphan = new StockReservation();
+        orphan.setProductId(productId);
+        orphan.setQuantity(3L);
+        orphan.setStatus(ReservationStatus.PENDING);
+        orphan.setCreatedAt(Instant.now().minus(Duration.ofHours(1)));
+        orphan.setExpiresAt(Instant.now().minus(Duration.ofMinutes(30)));
+        Long reservationId = reservationRepository.save(orphan).getReservationId();
+
+        reservationExpirer.sweepOverdueReservations();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (reservationService.getReservation(reservationId).getStatus() == ReservationStatus.PENDING
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertEquals(ReservationStatus.EXPIRED, reservationService.getReservation(reservationId).getStatus());
+        assertEquals(5L, quantity(productId));
+    }
+
+    /**
+     * Test 6: A retried reserve with the same idempotency key gets the first reservation, the stock is taken once
+     */
+    @Test
+    void testReserve_SameIdempotencyKey_ShouldReturnFirstReservation() {
+        Long productId = saveProduct(10);
+        String idempotencyKey = "ORDER-" + productId;
+
+        ReservationResponse first = reservationService.reserve(new ReservationRequest(productId, 3L, 60L, idempotencyKey));
+        ReservationResponse retried = reservationService.reserve(new ReservationRequest(productId, 3L, 60L, idempotencyKey));
+
+        assertEquals(first.getReservationId(), retried.getReservationId());
+        assertEquals(7L, quantity(productId));
+        // the same key for a different hold is refused
+        ProductServiceExeption ex = assertThrows(ProductServiceExeption.class,
+                () -> reservationService.reserve(new ReservationRequest(productId, 4L, 60L, idempotencyKey)));
+        assertEquals("IDEMPOTENCY_KEY_REUSED", ex.getStatusCode());
+        assertEquals(7L, quantity(productId));
+    }
+
+    private long quantity(Long productId) {
+        return productRepository.findById(productId).orElseThrow().getQuantity();
+    }
+
+    private Long saveProduct(long quantity) {
+        Product product = new Product();
+        product.setName("Reserved item");
+        product.setPrice(5.0);
+        product.setQuantity(quantity);
+        return productRepository.save(product).getProductId();
+    }
+}
@@ -0,0 +1,242 @@
+package com.zia.product.service.service.stock;
+
+import com.zia.product.service.dto.ProductQuantityRequest;
+import com.zia.product.service.dto.ReservationRequest;
+import com.zia.product.service.dto.ReservationResponse;
+import com.zia.product.service.entity.Product;
+import com.zia.product.service.event.StockChangedEvent;
+import com.zia.product.service.exeption.ProductServiceExeption;
+import com.zia.product.service.repository.ProductRepository;
+import com.zia.product.service.service.ProductService;
+import com.zia.product.service.service.ReservationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the LEDGER strategy
+ * Reductions are decided in memory, the products table has to catch up within a few flushes
+ */
+@SpringBootTest(properties = {
+        "product.stock.strategy=LEDGER",
+        "product.stock.ledger.log-path=target/stock-ledger-${random.uuid}.log",
+        // counters only follow the table through the ledger, a change behind its back stays unseen
+        "product.stock.ledger.resync-interval=1h"
+})
+@ActiveProfiles("test")
+@RecordApplicationEvents
+class LedgerStockUpdaterTest {
+
+    private static final int THREADS = 8;
+    private static final int ORDERS_PER_THREAD = 50;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    /**
+     * Test 1: Concurrent orders sell exactly the stock and the table ends up at zero
+     */
+    @Test
+    void testReduceQuantity_ConcurrentOrders_ShouldReachTheDatabase() throws Exception {
+        // ARRANGE - fewer units than orders
+        long stock = THREADS * ORDERS_PER_THREAD - 20;
+        Long productId = saveProduct(stock);
+        AtomicInteger succeeded = new AtomicInteger();
+
+        // ACT
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                    try {
+                        productService.reduceQuantity(productId, 1L);
+                        succeeded.incrementAndGet();
+                    } catch (ProductServiceExeption ex) {
+                        assertEquals("INSUFFICIENT_QUANTITY", ex.getStatusCode());
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // ASSERT
+        assertEquals(stock, succeeded.get());
+        assertTrue(eventually(() -> quantity(productId) == 0L), "flush never reached the products table");
+    }
+
+    /**
+     * Test 2: Returned stock goes through the ledger and reaches the table
+     */
+    @Test
+    void testReduceQuantity_AfterRestock_ShouldSeeNewStock() throws Exception {
+        Long productId = saveProduct(1);
+        productService.reduceQuantity(productId, 1L);
+        assertThrows(ProductServiceExeption.class, () -> productService.reduceQuantity(productId, 1L));
+
+        productService.increaseQuantity(productId, 3L);
+
+        assertTrue(eventually(() -> {
+            try {
+                productService.reduceQuantity(productId, 3L);
+                return true;
+            } catch (ProductServiceExeption ex) {
+                return false;
+            }
+        }), "returned stock never reached the ledger");
+        assertTrue(eventually(() -> quantity(productId) == 0L));
+    }
+
+    /**
+     * Test 3: Unknown products keep the PRODUCT_NOT_FOUND contract
+     */
+    @Test
+    void testReduceQuantity_UnknownProduct_ShouldThrowNotFound() {
+        ProductServiceExeption ex = assertThrows(ProductServiceExeption.class,
+                () -> productService.reduceQuantity(-1L, 1L));
+        assertEquals("PRODUCT_NOT_FOUND", ex.getStatusCode());
+    }
+
+    /**
+     * Test 4: A released reservation gives its stock back through the ledger
+     */
+    @Test
+    void testReservation_Released_ShouldReturnStockThroughTheLedger() throws Exception {
+        Long productId = saveProduct(5);
+        ReservationResponse reservation = reservationService.reserve(new ReservationRequest(productId, 4L, 60L, null));
+        assertThrows(ProductServiceExeption.class, () -> productService.reduceQuantity(productId, 2L));
+
+        reservationService.release(reservation.getReservationId());
+
+        productService.reduceQuantity(productId, 5L);
+        assertTrue(eventually(() -> quantity(productId) == 0L));
+    }
+
+    /**
+     * Test 5: A cart with one short line gives back the lines the ledger already took
+     */
+    @Test
+    void testReduceQuantities_OneLineShort_ShouldGiveBackEveryLine() throws Exception {
+        Long first = saveProduct(5);
+        Long second = saveProduct(1);
+
+        ProductServiceExeption ex = assertThrows(ProductServiceExeption.class, () -> productService.reduceQuantities(List.of(
+                new ProductQuantityRequest(first, 5L),
+                new ProductQuantityRequest(second, 2L))));
+
+        assertEquals("INSUFFICIENT_QUANTITY", ex.getStatusCode());
+        productService.reduceQuantity(first, 5L);
+        assertTrue(eventually(() -> quantity(first) == 0L));
+        assertEquals(1L, quantity(second));
+    }
+
+    /**
+     * Test 6: Sharding would move stock behind the counters and is refused
+     */
+    @Test
+    void testEnableStockSharding_ShouldBeRefused() {
+        Long productId = saveProduct(10);
+
+        ProductServiceExeption ex = assertThrows(ProductServiceExeption.class,
+                () -> productService.enableStockSharding(productId, 4));
+
+        assertEquals("SHARDING_UNAVAILABLE", ex.getStatusCode());
+        assertEquals(0, productRepository.findById(productId).orElseThrow().getStockShards());
+    }
+
+    /**
+     * Test 7: A product whose table was emptied behind the ledger's back is parked, the others keep flushing
+     */
+    @Test
+    void testFlush_TableChangedBehindTheLedger_ShouldParkOnlyThatProduct() throws Exception {
+        // ARRANGE
+        Long emptied = saveProduct(5);
+        Long healthy = saveProduct(10);
+        productService.reduceQuantity(emptied, 1L);
+        assertTrue(eventually(() -> quantity(emptied) == 4L));
+        // sold by someone writing the table directly, the counter still says 4
+        jdbcTemplate.update("update products set quantity = 0 where product_id = ?", emptied);
+
+        // ACT
+        productService.reduceQuantity(emptied, 3L);
+        productService.reduceQuantity(healthy, 2L);
+
+        // ASSERT
+        assertTrue(eventually(() -> quantity(healthy) == 8L), "a short product held back the others");
+        assertEquals(0L, quantity(emptied));
+        // restocked, the parked reduction goes through on its next try
+        jdbcTemplate.update("update products set quantity = 10 where product_id = ?", emptied);
+        assertTrue(eventually(() -> quantity(emptied) == 7L), "parked reduction never reached the table");
+        Thread.sleep(100);
+        assertEquals(7L, quantity(emptied));
+        assertEquals(8L, quantity(healthy));
+    }
+
+    /**
+     * Test 8: A cart publishes no StockChangedEvent itself, the flush does once the table has the new quantity
+     */
+    @Test
+    void testReduceQuantities_ShouldLeaveTheEventToTheFlush() {
+        Long first = saveProduct(5);
+        Long second = saveProduct(5);
+
+        productService.reduceQuantities(List.of(
+                new ProductQuantityRequest(first, 1L),
+                new ProductQuantityRequest(second, 2L)));
+
+        assertEquals(0, applicationEvents.stream(StockChangedEvent.class).count());
+    }
+
+    private boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return false;
+    }
+
+    private long quantity(Long productId) {
+        return productRepository.findById(productId).orElseThrow().getQuantity();
+    }
+
+    private Long saveProduct(long quantity) {
+        Product product = new Product();
+        product.setName("Ledger item");
+        product.setPrice(1.0);
+        product.setQuantity(quantity);
+        return productRepository.save(product).getProductId();
+    }
+}
@@ -0,0 +1,128 @@
+package com.zia.product.service.service.stock;
+
+import com.zia.product.service.entity.Product;
+import com.zia.product.service.exeption.ProductServiceExeption;
+import com.zia.product.service.repository.ProductRepository;
+import com.zia.product.service.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ShardedInventory
+ * A sharded product must sell exactly its stock, no matter how it is spread over the shards
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ShardedInventoryTest {
+
+    private static final int THREADS = 8;
+    private static final int ORDERS_PER_THREAD = 25;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    /**
+     * Test 1: Concurrent orders on a sharded product sell the whole stock and then stop
+     */
+    @Test
+    void testReduceQuantity_ShardedProduct_ShouldSellExactlyTheStock() throws Exception {
+        // ARRANGE - fewer units than orders
+        long stock = THREADS * ORDERS_PER_THREAD - 10;
+        Long productId = saveProduct(stock);
+        productService.enableStockSharding(productId, 8);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger insufficient = new AtomicInteger();
+
+        // ACT
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                    try {
+                        productService.reduceQuantity(productId, 1L);
+                        succeeded.incrementAndGet();
+                    } catch (ProductServiceExeption ex) {
+                        assertEquals("INSUFFICIENT_QUANTITY", ex.getStatusCode());
+                        insufficient.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // ASSERT
+        assertEquals(stock, succeeded.get());
+        assertEquals(10, insufficient.get());
+        assertEquals(0L, productService.getProductById(productId).getQuantity());
+    }
+
+    /**
+     * Test 2: A request larger than any single shard is served from several shards
+     */
+    @Test
+    void testReduceQuantity_LargerThanOneShard_ShouldDrainSeveralShards() {
+        Long productId = saveProduct(10);
+        productService.enableStockSharding(productId, 4);
+
+        productService.reduceQuantity(productId, 7L);
+
+        assertEquals(3L, productService.getProductById(productId).getQuantity());
+        ProductServiceExeption insufficient = assertThrows(ProductServiceExeption.class,
+                () -> productService.reduceQuantity(productId, 4L));
+        assertEquals("INSUFFICIENT_QUANTITY", insufficient.getStatusCode());
+    }
+
+    /**
+     * Test 3: Turning sharding off moves the remaining stock back to the product row
+     */
+    @Test
+    void testDisableSharding_ShouldRestoreQuantity() {
+        Long productId = saveProduct(9);
+        productService.enableStockSharding(productId, 2);
+        productService.reduceQuantity(productId, 2L);
+
+        productService.disableStockSharding(productId);
+
+        Product product = productRepository.findById(productId).orElseThrow();
+        assertEquals(0, product.getStockShards());
+        assertEquals(7L, product.getQuantity());
+    }
+
+    /**
+     * Test 4: Shard counts outside 2..MAX_SHARDS are rejected
+     */
+    @Test
+    void testEnableSharding_InvalidCount_ShouldThrow() {
+        Long productId = saveProduct(1);
+        ProductServiceExeption ex = assertThrows(ProductServiceExeption.class,
+                () -> productService.enableStockSharding(productId, ShardedInventory.MAX_SHARDS + 1));
+        assertEquals("INVALID_SHARD_COUNT", ex.getStatusCode());
+    }
+
+    private Long saveProduct(long quantity) {
+        Product product = new Product();
+        product.setName("Hot item");
+        product.setPrice(19.99);
+        product.setQuantity(quantity);
+        return productRepository.save(product).getProductId();
+    }
+}
@@ -0,0 +1,99 @@
+package com.zia.product.service.service.stock;
+
+import com.zia.product.service.service.stock.StockLedgerLog.LedgerRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for StockLedgerLog
+ * What was appended must be read back after a reopen, a torn tail must not be
+ */
+class StockLedgerLogTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Test 1: Records survive closing and reopening the log, readAfter skips what was checkpointed
+     */
+    @Test
+    void testReadAfter_AfterReopen_ShouldReturnLaterRecords() throws IOException {
+        Path path = dir.resolve("ledger.log");
+        try (StockLedgerLog log = new StockLedgerLog(path, false)) {
+            log.append(1, 10, 2);
+            log.append(2, 11, 1);
+            log.append(3, 10, 5);
+        }
+
+        try (StockLedgerLog log = new StockLedgerLog(path, false)) {
+            assertEquals(List.of(new LedgerRecord(2, 11, 1), new LedgerRecord(3, 10, 5)), log.readAfter(1));
+        }
+    }
+
+    /**
+     * Test 2: A record cut off or garbled by a crash ends the log and is removed on open
+     */
+    @Test
+    void testOpen_TornTail_ShouldBeCutOff() throws IOException {
+        Path path = dir.resolve("ledger.log");
+        try (StockLedgerLog log = new StockLedgerLog(path, false)) {
+            log.append(1, 10, 2);
+            log.append(2, 10, 3);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            // half of a third record, and garbage over the check word of the second
+            channel.write(ByteBuffer.allocate(StockLedgerLog.RECORD_SIZE / 2), 2L * StockLedgerLog.RECORD_SIZE);
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), 2L * StockLedgerLog.RECORD_SIZE - 3);
+        }
+
+        try (StockLedgerLog log = new StockLedgerLog(path, false)) {
+            assertEquals(List.of(new LedgerRecord(1, 10, 2)), log.readAfter(0));
+            assertEquals(StockLedgerLog.RECORD_SIZE, log.size());
+            log.append(2, 10, 4);
+            assertEquals(List.of(new LedgerRecord(1, 10, 2), new LedgerRecord(2, 10, 4)), log.readAfter(0));
+        }
+    }
+
+    /**
+     * Test 3: Truncate empties the log
+     */
+    @Test
+    void testTruncate_ShouldEmptyTheLog() throws IOException {
+        try (StockLedgerLog log = new StockLedgerLog(dir.resolve("ledger.log"), true)) {
+            log.append(1, 10, 2);
+            log.truncate();
+            assertEquals(0, log.size());
+            assertTrue(log.readAfter(0).isEmpty());
+        }
+    }
+
+    /**
+     * Test 4: Rewrite keeps only the given records, and later appends go after them
+     */
+    @Test
+    void testRewrite_ShouldKeepOnlyGivenRecords() throws IOException {
+        Path path = dir.resolve("ledger.log");
+        try (StockLedgerLog log = new StockLedgerLog(path, false)) {
+            log.append(1, 10, 2);
+            log.append(2, 11, 1);
+            log.append(3, 10, 5);
+
+            log.rewrite(List.of(new LedgerRecord(3, 10, 5)));
+            log.append(4, 11, 2);
+        }
+
+        try (StockLedgerLog log = new StockLedgerLog(path, false)) {
+            assertEquals(List.of(new LedgerRecord(3, 10, 5), new LedgerRecord(4, 11, 2)), log.readAfter(0));
+            assertEquals(2L * StockLedgerLog.RECORD_SIZE, log.size());
+        }
+    }
+}
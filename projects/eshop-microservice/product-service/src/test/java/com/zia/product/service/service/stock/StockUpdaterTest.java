@@ -0,0 +1,106 @@
+package com.zia.product.service.service.stock;
+
+import com.zia.product.service.entity.Product;
+import com.zia.product.service.exeption.ProductServiceExeption;
+import com.zia.product.service.repository.ProductRepository;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the three StockUpdater strategies
+ * Whatever the strategy, every successful reduction must be visible in the final stock
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class StockUpdaterTest {
+
+    private static final int THREADS = 8;
+    private static final int ORDERS_PER_THREAD = 25;
+
+    @Autowired
+    private List<StockUpdater> stockUpdaters;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    /**
+     * Test 1: Concurrent orders never lose an update, conflicts may only end in CONCURRENT_UPDATE
+     */
+    @ParameterizedTest
+    @EnumSource(value = StockUpdateStrategy.class, names = "LEDGER", mode = EnumSource.Mode.EXCLUDE)
+    void testReduceQuantity_ConcurrentOrders_ShouldKeepStockConsistent(StockUpdateStrategy strategy) throws Exception {
+        // ARRANGE
+        StockUpdater stockUpdater = updater(strategy);
+        long stock = THREADS * ORDERS_PER_THREAD;
+        Long productId = saveProduct(stock);
+        AtomicInteger succeeded = new AtomicInteger();
+
+        // ACT
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                    try {
+                        stockUpdater.reduceQuantity(productId, 1L);
+                        succeeded.incrementAndGet();
+                    } catch (ProductServiceExeption ex) {
+                        assertEquals("CONCURRENT_UPDATE", ex.getStatusCode());
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // ASSERT
+        long remaining = productRepository.findById(productId).orElseThrow().getQuantity();
+        assertEquals(stock - succeeded.get(), remaining);
+    }
+
+    /**
+     * Test 2: Every strategy keeps the PRODUCT_NOT_FOUND / INSUFFICIENT_QUANTITY contract
+     */
+    @ParameterizedTest
+    @EnumSource(value = StockUpdateStrategy.class, names = "LEDGER", mode = EnumSource.Mode.EXCLUDE)
+    void testReduceQuantity_ErrorCodes(StockUpdateStrategy strategy) {
+        StockUpdater stockUpdater = updater(strategy);
+        Long productId = saveProduct(1);
+
+        ProductServiceExeption notFound = assertThrows(ProductServiceExeption.class,
+                () -> stockUpdater.reduceQuantity(-1L, 1L));
+        ProductServiceExeption insufficient = assertThrows(ProductServiceExeption.class,
+                () -> stockUpdater.reduceQuantity(productId, 2L));
+
+        assertEquals("PRODUCT_NOT_FOUND", notFound.getStatusCode());
+        assertEquals("INSUFFICIENT_QUANTITY", insufficient.getStatusCode());
+        assertEquals(1L, productRepository.findById(productId).orElseThrow().getQuantity());
+    }
+
+    private StockUpdater updater(StockUpdateStrategy strategy) {
+        return stockUpdaters.stream().filter(updater -> updater.strategy() == strategy).findFirst().orElseThrow();
+    }
+
+    private Long saveProduct(long quantity) {
+        Product product = new Product();
+        product.setName("Hot item");
+        product.setPrice(19.99);
+        product.setQuantity(quantity);
+        return productRepository.save(product).getProductId();
+    }
+}
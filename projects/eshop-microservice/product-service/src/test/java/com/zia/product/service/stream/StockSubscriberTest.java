@@ -0,0 +1,153 @@
+package com.zia.product.service.stream;
+
+import com.zia.product.service.dto.StockLevelResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for StockSubscriber
+ * A slow client must get the latest level, not a backlog of every change
+ */
+class StockSubscriberTest {
+
+    /**
+     * Test 1: Levels offered while a send is stuck collapse into the latest one
+     */
+    @Test
+    void testOffer_SlowClient_ShouldKeepOnlyLatestLevel() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(release, false);
+        StockSubscriber subscriber = new StockSubscriber(emitter, Set.of(1L));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // the first send blocks, the other 99 levels pile up behind it
+        for (long quantity = 100; quantity > 0; quantity--) {
+            subscriber.offer(new StockLevelResponse(1L, quantity), executor);
+        }
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!Long.valueOf(1L).equals(emitter.lastQuantity()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        executor.shutdown();
+
+        assertTrue(emitter.sent.size() <= 2, "sent " + emitter.sent.size() + " events");
+        assertEquals(1L, emitter.sent.get(emitter.sent.size() - 1).getQuantity());
+    }
+
+    /**
+     * Test 2: A failed send closes the subscriber and later offers are dropped
+     */
+    @Test
+    void testOffer_ClientGone_ShouldClose() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter(new CountDownLatch(0), true);
+        StockSubscriber subscriber = new StockSubscriber(emitter, Set.of(1L));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        subscriber.offer(new StockLevelResponse(1L, 5L), executor);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertTrue(subscriber.isClosed());
+        subscriber.offer(new StockLevelResponse(1L, 4L), Runnable::run);
+        assertTrue(emitter.sent.isEmpty());
+    }
+
+    /**
+     * Test 3: Heartbeats for a stuck client collapse into one and share its single send task
+     */
+    @Test
+    void testHeartbeat_SlowClient_ShouldQueueOnlyOne() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(release, false);
+        StockSubscriber subscriber = new StockSubscriber(emitter, Set.of(1L));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        subscriber.offer(new StockLevelResponse(1L, 5L), executor);
+        for (int i = 0; i < 50; i++) {
+            subscriber.heartbeat(executor);
+        }
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (emitter.sends.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        executor.shutdown();
+
+        // the stuck level, then one heartbeat
+        assertEquals(2, emitter.sends.get());
+    }
+
+    /**
+     * Test 4: A send blocked past the timeout is given up once, and the callback runs when it returns
+     */
+    @Test
+    void testAbandonIfStalled_BlockedSend_ShouldCloseAndReportReturn() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(release, false);
+        AtomicInteger returned = new AtomicInteger();
+        StockSubscriber subscriber = new StockSubscriber(emitter, Set.of(1L), returned::incrementAndGet);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        assertFalse(subscriber.abandonIfStalled(0));
+        subscriber.offer(new StockLevelResponse(1L, 5L), executor);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!subscriber.abandonIfStalled(TimeUnit.MILLISECONDS.toNanos(50)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(subscriber.isClosed());
+        assertFalse(subscriber.abandonIfStalled(0));
+        assertEquals(0, returned.get());
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(1, returned.get());
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<StockLevelResponse> sent = new CopyOnWriteArrayList<>();
+        private final AtomicInteger sends = new AtomicInteger();
+        private final CountDownLatch release;
+        private final boolean fail;
+
+        RecordingEmitter(CountDownLatch release, boolean fail) {
+            this.release = release;
+            this.fail = fail;
+        }
+
+        Long lastQuantity() {
+            return sent.isEmpty() ? null : sent.get(sent.size() - 1).getQuantity();
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (fail) {
+                throw new IOException("Broken pipe");
+            }
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sends.incrementAndGet();
+            builder.build().stream()
+                    .map(DataWithMediaType::getData)
+                    .filter(StockLevelResponse.class::isInstance)
+                    .forEach(data -> sent.add((StockLevelResponse) data));
+        }
+    }
+}